@@ -5,6 +5,10 @@
 
 package Optimisation;
 
+import java.util.concurrent.CompletableFuture;
+
+import WindowShading.FacadeGeometry;
+
 /**
  *
  * @author cvaeib
@@ -17,13 +21,31 @@ public abstract class FitnessFunction
 	 */
 	public abstract MOFitness evaluate(Individual i);
 
+	/**
+	 * start evaluating the specified individual; the default evaluates it on
+	 * the calling thread, override this when the evaluation mostly waits on
+	 * something external (a simulation) so that waiting holds no thread
+	 */
+	public CompletableFuture<MOFitness> evaluateAsync(Individual i)
+	{
+		return CompletableFuture.completedFuture(evaluate(i));
+	}
+
 	private int problemSize;
 
+	private FacadeGeometry geometry;
+
 	protected FitnessFunction(int problemSize)
 	{
 		this.problemSize = problemSize;
 	}
 
+	protected FitnessFunction(FacadeGeometry geometry)
+	{
+		this(geometry.getGenomeLength());
+		this.geometry = geometry;
+	}
+
 	/**
 	 * a means to get the number of evaluations performed. Implement how this is
 	 * kept track of yourself.
@@ -35,6 +57,12 @@ public abstract class FitnessFunction
 		return problemSize;
 	}
 
+	/** the facade the genomes describe, null if this isn't a facade problem */
+	public FacadeGeometry getGeometry()
+	{
+		return geometry;
+	}
+
 	public static class MOFitness
 	{
 		public double fitness1;
@@ -42,5 +70,14 @@ public abstract class FitnessFunction
 
 		/** set to zero if unconstrained */
 		public double overallConstraintViolation;
+
+		/** true if fitness1 was estimated rather than simulated at full fidelity */
+		public boolean estimated;
+
+		/**
+		 * true if the solution could not be evaluated; the fitness values are
+		 * NaN then and mean nothing
+		 */
+		public boolean invalid;
 	}
 }
@@ -0,0 +1,109 @@
+package Optimisation;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import WindowShading.FacadeGeometry;
+import plotting.FacadeGallery;
+
+/**
+ * Headless run observer: writes the run statistics, the final rank 0 individuals and the run's Pareto archive to a
+ * text file. Each member takes one line, {@code energy,cost,genome} with the genome as hexadecimal (window 1 is
+ * the most significant bit of the first digit). Optionally the archive's facades are drawn next to it as a PNG
+ * gallery.
+ */
+public class FrontReport implements RunObserver
+{
+	/** The file the report is written to. */
+	private final File file;
+	/** The facade the genomes describe. */
+	private final FacadeGeometry geometry;
+	/** Whether the PNG gallery is drawn. */
+	private final boolean gallery;
+
+	/**
+	 * Constructor for the report.
+	 * 
+	 * @param file The file to write the report to, it is overwritten.
+	 * @param geometry The facade the genomes describe.
+	 * @param gallery {@code true} to also draw the archive's facades into a PNG file named after the report.
+	 */
+	public FrontReport(File file, FacadeGeometry geometry, boolean gallery)
+	{
+		this.file = file;
+		this.geometry = geometry;
+		this.gallery = gallery;
+	}
+
+	@Override
+	public void finished(Individual[] population, RunSummary summary)
+	{
+		try (PrintStream out = new PrintStream(file))
+		{
+			int frontSize = 0;
+			for (Individual i : population)
+				if (i.rank == 0)
+					frontSize++;
+
+			out.println("# seed: " + summary.getSeed());
+			out.println("# generations: " + summary.getGenerations());
+			out.println("# evaluations: " + summary.getEvaluations());
+			out.println("# elapsed ms: " + summary.getElapsedMillis());
+			out.println("# first hypervolume: " + summary.getFirstHypervolume());
+			out.println("# last hypervolume: " + summary.getLastHypervolume());
+			out.println("# MAE: " + summary.getMAE());
+			out.println("# facade: " + geometry);
+			out.println("# front size: " + frontSize);
+			out.println("energy,cost,genome");
+
+			for (Individual i : population)
+				if (i.rank == 0)
+					out.println(i.getFitness1() + "," + i.getFitness2() + "," + toHex(i.getAlleles()));
+
+			out.println("# archive size: " + summary.getArchive().length);
+			out.println("energy,cost,genome");
+			for (Individual i : summary.getArchive())
+				out.println(i.getFitness1() + "," + i.getFitness2() + "," + toHex(i.getAlleles()));
+		}
+		catch (FileNotFoundException e)
+		{
+			System.err.println("could not write report " + file + ": " + e.getMessage());
+		}
+
+		if (gallery)
+		{
+			File png = new File(file.getPath().replaceFirst("(\\.[^.\\\\/]*)?$", ".png"));
+			try
+			{
+				FacadeGallery.writePNG(new FacadeGallery(geometry).renderFront(summary.getArchive()), png);
+			}
+			catch (IOException e)
+			{
+				System.err.println("could not write gallery " + png + ": " + e.getMessage());
+			}
+		}
+
+		System.out.println("report written to " + file);
+	}
+
+	/**
+	 * Packs the genome four bits per hexadecimal digit.
+	 * 
+	 * @param alleles The genome.
+	 * @return The hexadecimal string.
+	 */
+	static String toHex(boolean[] alleles)
+	{
+		StringBuilder sb = new StringBuilder((alleles.length + 3) / 4);
+		for (int i = 0; i < alleles.length; i += 4)
+		{
+			int digit = 0;
+			for (int b = 0; b < 4; b++)
+				digit = (digit << 1) | (i + b < alleles.length && alleles[i + b] ? 1 : 0);
+			sb.append(Character.forDigit(digit, 16));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,82 @@
+package Optimisation;
+
+/**
+ * Immutable copy of a population's objectives and ranks at the end of a generation, published to live views so
+ * they never read the optimiser's own individuals.
+ */
+public final class GenerationSnapshot
+{
+	private final int generation;
+	private final double[] fitness1;
+	private final double[] fitness2;
+	private final int[] rank;
+
+	/**
+	 * Copies the objectives and ranks of the passed population.
+	 * 
+	 * @param generation The generation the population belongs to.
+	 * @param population The population.
+	 */
+	public GenerationSnapshot(int generation, Individual[] population)
+	{
+		this.generation = generation;
+		this.fitness1 = new double[population.length];
+		this.fitness2 = new double[population.length];
+		this.rank = new int[population.length];
+		for (int i = 0; i < population.length; i++)
+		{
+			fitness1[i] = population[i].getFitness1();
+			fitness2[i] = population[i].getFitness2();
+			rank[i] = population[i].rank;
+		}
+	}
+
+	/**
+	 * Copies the objectives and ranks of the parents of the passed population.
+	 * 
+	 * @param generation The generation the population belongs to.
+	 * @param population The population.
+	 */
+	public GenerationSnapshot(int generation, Population population)
+	{
+		int n = population.getSize();
+		this.generation = generation;
+		this.fitness1 = new double[n];
+		this.fitness2 = new double[n];
+		this.rank = new int[n];
+		for (int i = 0; i < n; i++)
+		{
+			fitness1[i] = population.getEnergy(i);
+			fitness2[i] = population.getCost(i);
+			rank[i] = population.getRank(i);
+		}
+	}
+
+	public int getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * @return The number of individuals in the snapshot.
+	 */
+	public int size()
+	{
+		return rank.length;
+	}
+
+	public double getFitness1(int i)
+	{
+		return fitness1[i];
+	}
+
+	public double getFitness2(int i)
+	{
+		return fitness2[i];
+	}
+
+	public int getRank(int i)
+	{
+		return rank[i];
+	}
+}
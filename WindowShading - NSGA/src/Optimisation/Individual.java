@@ -3,12 +3,20 @@ package Optimisation;
 import java.util.Comparator;
 import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleSupplier;
 
+import WindowShading.FacadeGeometry;
+import metrics.EvaluationLog;
 import regression.Model;
 
 /**
  * Bit string individuals with 2 objectives
  * 
+ * The optimiser itself keeps its individuals in a {@link Population}; objects of this class are used to hand
+ * solutions to the fitness functions, the views and the reports.
+ * 
  * @author Ernest Vanmosuinck
  */
 public class Individual
@@ -17,6 +25,8 @@ public class Individual
 	private double fitness1;
 	private double fitness2;
 	private double overallConstraintViolation;
+	private boolean estimated;
+	private boolean invalid;
 	private FitnessFunction ff;
 
 	// NSGA-II specific vars
@@ -35,17 +45,19 @@ public class Individual
 	 */
 	public Individual(int size, Random r)
 	{
-		boolean[] a = new boolean[size];
-//		for (int i = 0; i < a.length; i++)
-//		{
-//			a[i] = r.nextBoolean();
-//		}
-		for (int i = 0; i < a.length; i++)
-		{
-			a[i] = r.nextDouble() < ((double) i / 100);
-		}
-		
-		init(a);
+		init(randomAlleles(size, r::nextDouble));
+	}
+
+	/**
+	 * Constructor for an Individual solution drawn from a splittable random stream.
+	 * This constructor is only used when using the surrogate model to evaluate fitness.
+	 * 
+	 * @param size The number of windows in the solution.
+	 * @param r Random stream to generate a state of randomness in the solution.
+	 */
+	public Individual(int size, SplittableRandom r)
+	{
+		init(randomAlleles(size, r::nextDouble));
 	}
 	
 	/**
@@ -58,17 +70,7 @@ public class Individual
 	 */
 	public Individual(FitnessFunction ff, int size, Random r)
 	{
-		boolean[] a = new boolean[size];
-//		for (int i = 0; i < a.length; i++)
-//		{
-//			a[i] = r.nextBoolean();
-//		}
-		for (int i = 0; i < a.length; i++)
-		{
-			a[i] = r.nextDouble() < ((double) i / 100);
-		}
-
-		init(ff, a);
+		init(ff, randomAlleles(size, r::nextDouble));
 	}
 
 	/**
@@ -94,6 +96,54 @@ public class Individual
 		init(ff, alleles);
 	}
 
+	/**
+	 * Constructor for a copy of an evaluated solution, as read from a {@link Population}.
+	 * 
+	 * @param alleles The array of boolean representing windows.
+	 * @param fitness1 The energy consumption.
+	 * @param fitness2 The production cost.
+	 * @param overallConstraintViolation The constraint violation.
+	 * @param estimated Whether the energy is an estimate.
+	 * @param invalid Whether the solution could not be evaluated.
+	 * @param rank The non-domination rank.
+	 * @param distance The crowding distance.
+	 */
+	Individual(boolean[] alleles, double fitness1, double fitness2, double overallConstraintViolation,
+			boolean estimated, boolean invalid, int rank, double distance)
+	{
+		this.alleles = alleles;
+		this.fitness1 = fitness1;
+		this.fitness2 = fitness2;
+		this.overallConstraintViolation = overallConstraintViolation;
+		this.estimated = estimated;
+		this.invalid = invalid;
+		this.rank = rank;
+		this.distance = distance;
+	}
+
+	/**
+	 * Creates a random layout whose window probability ramps up along the genome, from none at the start to
+	 * certain at 5/6 of its length (i / 100 for the original 120 windows).
+	 * 
+	 * @param size The number of windows in the solution.
+	 * @param r Source of uniform random numbers in [0, 1).
+	 * @return The array of boolean representing windows.
+	 */
+	private static boolean[] randomAlleles(int size, DoubleSupplier r)
+	{
+		boolean[] a = new boolean[size];
+//		for (int i = 0; i < a.length; i++)
+//		{
+//			a[i] = r.nextBoolean();
+//		}
+		double ramp = size / 1.2;
+		for (int i = 0; i < a.length; i++)
+		{
+			a[i] = r.getAsDouble() < (i / ramp);
+		}
+		return a;
+	}
+
 	/**
 	 * Initialises values to their default state.
 	 * 
@@ -128,34 +178,72 @@ public class Individual
 	 */
 	public void energyPlusEvaluate(FitnessFunction ff)
 	{
-		FitnessFunction.MOFitness f = ff.evaluate(this);
+		long start = System.nanoTime();
+		setFitness(ff, ff.evaluate(this), start);
+	}
+
+	/**
+	 * start evaluating with the evaluator, see
+	 * {@link FitnessFunction#evaluateAsync(Individual)}; the fitness is set
+	 * when the returned future completes.
+	 */
+	public CompletableFuture<Void> energyPlusEvaluateAsync(FitnessFunction ff)
+	{
+		long start = System.nanoTime();
+		return ff.evaluateAsync(this).thenAccept(f -> setFitness(ff, f, start));
+	}
+
+	private void setFitness(FitnessFunction ff, FitnessFunction.MOFitness f, long start)
+	{
 		this.fitness1 = f.fitness1;
+		this.estimated = f.estimated;
+		this.invalid = f.invalid;
 //		this.fitness2 = f.fitness2;
 //		this.overallConstraintViolation = f.overallConstraintViolation;
 		
-		int count = 0;
-		for (int i = 0; i < alleles.length; i++)
-			count += alleles[i] ? 1 : 0;
-		this.fitness2 = 100 * (120 - count) + 350 * count;
+		this.fitness2 = cost(ff.getGeometry());
+
+		EvaluationLog log = EvaluationLog.current();
+		if (log != null)
+		{
+			byte kind = invalid ? EvaluationLog.FAILED
+					: estimated ? EvaluationLog.ESTIMATE : EvaluationLog.SIMULATION;
+			log.record(kind, alleles, System.nanoTime() - start, fitness1, fitness2);
+		}
 	}
 
 	/**
 	 * Evaluate the fitness (energy and cost).
-	 * Cost can range between 12000 and 42000.
+	 * Cost can range between 12000 and 42000 on the default 120 cell facade.
 	 * 
 	 * @param model The surrogate model.
 	 */
 	public void surrogateEvaluate(Model model)
 	{
+		long start = System.nanoTime();
+		this.fitness1 = model.predict(alleles);
+		this.fitness2 = cost(model.getGeometry());
+		this.estimated = true;
+
+		EvaluationLog log = EvaluationLog.current();
+		if (log != null)
+			log.record(EvaluationLog.SURROGATE, alleles, System.nanoTime() - start, fitness1, fitness2);
+	}
+
+	/**
+	 * Production cost of the layout: 100 per wall cell and 350 per window.
+	 * 
+	 * @param geometry The facade, {@code null} to treat every allele as a window cell.
+	 * @return The cost.
+	 */
+	private double cost(FacadeGeometry geometry)
+	{
+		int cells = geometry != null ? geometry.getCellCount() : alleles.length;
 		int count = 0;
-		
-		for (int i = 0; i < alleles.length; i++)
+		for (int i = 0; i < cells; i++)
 			count += alleles[i] ? 1 : 0;
 
-		double cost = 100 * (120 - count) + 350 * count;
-		
-		this.fitness1 = model.predict(alleles);
-		this.fitness2 = cost;
+		return 100 * (cells - count) + 350 * count;
 	}
 
 	/**
@@ -178,6 +266,26 @@ public class Individual
 		this.alleles = alleles;
 	}
 
+	/**
+	 * Accessor method for the estimated flag.
+	 * 
+	 * @return {@code true} if the energy was predicted or extrapolated rather than simulated at full fidelity.
+	 */
+	public boolean isEstimated()
+	{
+		return estimated;
+	}
+
+	/**
+	 * Accessor method for the invalid flag.
+	 * 
+	 * @return {@code true} if the solution could not be evaluated, its energy is {@code NaN} then.
+	 */
+	public boolean isInvalid()
+	{
+		return invalid;
+	}
+
 	/**
 	 * This method determines if an individual dominates another individual.
 	 * An individual dominates another if he is no worse than the other in all objectives and strictly better in at least one.
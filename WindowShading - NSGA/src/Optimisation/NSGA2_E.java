@@ -1,18 +1,31 @@
 package Optimisation;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
-
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+
+import WindowShading.FacadeGeometry;
+import WindowShading.MultiFidelityFitnessFunction;
 import WindowShading.WindowShadingFitnessFunction;
+import indicators.CrowdingDistance;
+import indicators.Hypervolume2D;
+import indicators.HypervolumeTruncation;
+import indicators.NondominatedSorting;
 import main.Loader;
+import metrics.EvaluationLog;
+import metrics.Metrics;
+import metrics.MetricsRecorder;
+import metrics.MetricsRecorder.Phase;
+import metrics.MetricsWriter;
 import plotting.PredictedPlotting;
-import plotting.FacadeUI;
 import plotting.Plotting;
+import plotting.ResultWindows;
 import regression.Model;
 
 /**
@@ -23,17 +36,37 @@ import regression.Model;
 public class NSGA2_E
 {
 	private FitnessFunction ff;
-	/** Random object. */
-	private Random r;
-
-	/** The number of windows on a building's façade. */
-	private int windowsCount = 120;
+	/** The seed of the run; every random draw derives from it. */
+	private long seed;
+	/** Random streams of the current run. */
+	private RandomStreams streams;
+	/** Number of offspring populations created so far in the current run. */
+	private int offspringRound;
+	/** Pool the offspring are generated and evaluated on. */
+	private ForkJoinPool pool;
+	/** Pool shared with other runs, {@code null} to give every run a pool of its own. */
+	private ForkJoinPool sharedPool;
+	/** The parents and offspring of the current run. */
+	private Population population;
+	/** Scratch for the surviving slots of a generation. */
+	private int[] survivors;
+	/** Scratch for the members of the front that is split by the truncation. */
+	private int[] splitFront;
+
+	/** The building's façade: its cells and the sections of the genome. */
+	private FacadeGeometry geometry;
 	/** Number of solutions per evaluations. */
 	private int numSolutions = 100;
 	/** Number of threads running at the same time. */
 	private int numThreads = 10;
+	/** Evaluate without a thread per batch: simulations run asynchronously, the surrogate on the pool. */
+	private boolean asyncEvaluation = false;
+	/** Number of simulations in flight at once in the asynchronous mode. */
+	private int maxConcurrentSimulations = Runtime.getRuntime().availableProcessors();
 	/** Total number of evaluations. */
 	private int maxEvals = 5000;
+	/** Number of offspring pairs drawn from one random stream. */
+	private static final int PAIRS_PER_CHUNK = 16;
 
 	// ************* NSGA-2 options *************
 	/** Selection rate. */
@@ -42,17 +75,88 @@ public class NSGA2_E
 	private double crossoverRate = 0.5;
 	/** Mutation rate. */
 	private double mutationRate = 0.25; // 0 = low, 1 = high
+	/** Truncate the last accepted front by hypervolume contribution instead of crowding distance. */
+	private boolean hypervolumeSelection = false;
 	
 	/** Surrogate model object. */
 	private Model model;
+	/** Number of generations between retrainings of the surrogate model, 0 to never retrain it. */
+	private int retrainInterval = 100;
+	/** Check the final population's surrogate fitness against EnergyPlus. */
+	private boolean validateSurrogate = true;
+	/** Fitness function the generations are evaluated with, {@code null} to use the surrogate model. */
+	private FitnessFunction evaluator;
+	/**
+	 * Pre-screen the offspring with the surrogate model before simulating them: only those predicted within this
+	 * fraction of the energy of the simulated front are simulated. Negative to simulate every offspring.
+	 */
+	private double prescreenMargin = -1;
+	/** Number of offspring pre-screened and of those simulated in the current run. */
+	private int prescreened;
+	private int prescreenSimulated;
+	/** Scratch for the simulated front the offspring are screened against, by increasing energy. */
+	private double[] frontEnergy = new double[0];
+	private double[] frontCost = new double[0];
+	/** Number of surrogate predictions remembered across generations. */
+	private int predictionCacheSize = 1 << 14;
+	/** Surrogate predictions of the current run, by genome and model version. */
+	private PredictionCache predictions;
+	/** Model version every slot of the population was last scored with. */
+	private int scoredVersion;
+	/** Every non-dominated solution evaluated in the current run. */
+	private ParetoArchive archive;
+	/** Box sizes of the archive's ε grid, 0 to archive every non-dominated solution. */
+	private double archiveEpsilonEnergy = 0;
+	private double archiveEpsilonCost = 0;
+
+	/** Truncation operator used when selecting by hypervolume contribution. */
+	private HypervolumeTruncation truncation;
+	/** Crowding distance operator used otherwise. */
+	private CrowdingDistance crowding = new CrowdingDistance();
+	/** Non-dominated sorting of the combined population. */
+	private NondominatedSorting sorting = new NondominatedSorting();
+	/** Scratch for the rank 0 slots the hypervolume is computed over. */
+	private int[] frontSlots = new int[0];
+	/** Hypervolume of the rank 0 individuals of each generation's population. */
+	private double[] hypervolumeHistory;
+	/** Number of generations recorded in the hypervolume history. */
+	private int generations;
+
+	/** Per-generation instrumentation of the current run. */
+	private MetricsRecorder recorder;
+	/** File the per-generation metrics are written to, {@code null} for JMX only. */
+	private String metricsFile;
+
+	/** Run without any window; the result is written to the report file instead. */
+	private boolean headless = false;
+	/** File the headless report is written to. */
+	private String reportFile = "front-report.txt";
+	/** Draw the archive's facades next to the headless report. */
+	private boolean reportGallery = false;
+	/** Number of fitness evaluations performed in the current run. */
+	private long evaluations;
+	/** Statistics of the last finished run. */
+	private RunSummary summary;
 
 	/**
 	 * Constructor object for the NSGA.
 	 */
 	public NSGA2_E()
 	{
-		ff = new WindowShadingFitnessFunction(false, true);
-		r = new Random();
+		this(FacadeGeometry.DEFAULT);
+	}
+
+	/**
+	 * Constructor object for the NSGA on a given façade.
+	 * 
+	 * @param geometry The façade to optimise.
+	 */
+	public NSGA2_E(FacadeGeometry geometry)
+	{
+		this.geometry = geometry;
+		ff = new WindowShadingFitnessFunction(geometry, false, true);
+		seed = System.nanoTime();
+		truncation = new HypervolumeTruncation(Plotting.REFERENCE_ENERGY, Plotting.REFERENCE_COST);
 	}
 
 	/**
@@ -60,120 +164,145 @@ public class NSGA2_E
 	 */
 	public void go()
 	{
-		System.out.println("started NSGA-II");
+		System.out.println("started NSGA-II, seed " + seed);
+		streams = new RandomStreams(seed);
+		offspringRound = 0;
+		pool = sharedPool != null ? sharedPool : new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		survivors = new int[numSolutions];
+		splitFront = new int[2 * numSolutions];
+		long startTime = System.currentTimeMillis();
+		evaluations = 0;
+
+		recorder = new MetricsRecorder();
+		if (metricsFile != null)
+		{
+			try
+			{
+				recorder.setWriter(new MetricsWriter(new File(metricsFile)));
+			}
+			catch (IOException e)
+			{
+				System.err.println("could not open metrics file " + metricsFile + ": " + e.getMessage());
+			}
+		}
 
-		VisualisePopulation vp = new VisualisePopulation();
+		// only touch the GUI classes when we actually have a display to show them on
+		RunObserver observer = headless
+				? new FrontReport(new File(reportFile), geometry, reportGallery)
+				: new ResultWindows(geometry);
+		SnapshotMailbox mailbox = observer.liveView();
 		
 		// 1 - initialize random population
-		Individual[] initial = new Individual[numSolutions];
-		initial[0] = new Individual(new boolean[windowsCount]);
-		for (int i = 1; i < initial.length; i++)
+		population = new Population(geometry, numSolutions);
+		archive = new ParetoArchive(archiveEpsilonEnergy, archiveEpsilonCost);
+		if (evaluator == null || prescreening())
 		{
-			initial[i] = new Individual(windowsCount, r);
+			predictions = new PredictionCache(population.getWords(), predictionCacheSize);
+			scoredVersion = model.getVersion();
+		}
+		prescreened = 0;
+		prescreenSimulated = 0;
+		population.clear(0);
+		SplittableRandom init = streams.stream(RandomStreams.INITIALISATION, 0, 0);
+		for (int i = 1; i < numSolutions; i++)
+		{
+			population.randomise(i, init);
 		}
 		
-		evaluatePopulation(initial, false);
-		initial = ascendList(nonDominatedSort(initial));
+		evaluateSlots(0, numSolutions);
+		sorting.sort(population.energy(), population.cost(), population.rank(), 0, numSolutions);
 		
 		// 2 - offspring
-		Individual[] offspring = createOffspring(initial);
-		evaluatePopulation(offspring, false);
-
-		// System.out.println("TEST OFFSPRING " + offspring[0].getFitness1() + "
-		// " + offspring[0].getFitness2());
+		createOffspring();
+		evaluateSlots(numSolutions, 2 * numSolutions);
 
-		// for (Individual i : initial)
-		// {
-		// System.out.println(i.getFitness1() + " " + i.getFitness2());
-		// }
+		double firstPopulationHypervolume = parentHypervolume();
 
-		double firstPopulationHypervolume = Plotting.hypervolume(initial);
+		hypervolumeHistory = new double[maxEvals];
+		generations = 0;
 
 		int currentEval = 0;
 		while (currentEval < maxEvals)
 		{
-			Individual[] R = new Individual[initial.length + offspring.length];
-			int p = 0;
-			for (int i = 0; i < initial.length; i++)
+			long phaseStart = System.nanoTime();
+			if (rescore())
+				recorder.addPhase(Phase.EVALUATION, System.nanoTime() - phaseStart);
+
+			// parents and offspring together make up R; fronts are only peeled until the parents are filled
+			phaseStart = System.nanoTime();
+			sorting.begin(population.energy(), population.cost(), population.rank(), 0, population.getCapacity());
+			int[] members = sorting.getMembers();
+			int pointer = 0;
+			int front = 0;
+			int size = 0;
+			// once the parents are full the rest of R is left unranked
+			while (pointer < numSolutions && (size = sorting.nextFront()) > 0)
 			{
-				R[p++] = initial[i];
+				if (pointer + size > numSolutions)
+					break;
+				System.arraycopy(members, sorting.getFrontStart(front), survivors, pointer, size);
+				pointer += size;
+				front++;
 			}
-			for (int i = 0; i < offspring.length; i++)
+			recorder.addPhase(Phase.SORT, System.nanoTime() - phaseStart);
+
+			if (pointer < numSolutions)
 			{
-				R[p++] = offspring[i];
-			}
+				// only the front that does not fit is truncated
+				phaseStart = System.nanoTime();
+				System.arraycopy(members, sorting.getFrontStart(front), splitFront, 0, size);
 
-			List<List<Individual>> fronts = nonDominatedSort(R);
+				if (hypervolumeSelection)
+					truncation.truncate(splitFront, size, numSolutions - pointer, population.energy(),
+							population.cost());
+				else
+					crowding.truncate(splitFront, size, numSolutions - pointer, population.energy(),
+							population.cost(), population.distance());
 
-			initial = new Individual[numSolutions];
-			int pointer = 0;
-			List<Individual> nextFront = fronts.remove(0);
-			while (pointer + nextFront.size() <= initial.length)
-			{
-				for (int i = 0; i < nextFront.size(); i++)
-					initial[pointer++] = nextFront.get(i);
-				nextFront = fronts.remove(0);
+				for (int i = 0; pointer < numSolutions; i++)
+					survivors[pointer++] = splitFront[i];
+				recorder.addPhase(Phase.CROWDING, System.nanoTime() - phaseStart);
 			}
+			population.survive(survivors);
 
-			if (pointer < initial.length)
-			{
-				crowdingDistance(nextFront);
-				Individual[] nextFrontArray = nextFront
-						.toArray(new Individual[nextFront.size()]);
+			hypervolumeHistory[generations] = parentHypervolume();
+			if (mailbox != null)
+				mailbox.publish(new GenerationSnapshot(generations, population));
 
-				Arrays.sort(nextFrontArray,
-						new Individual.CrowdingDistanceComparator());
+			phaseStart = System.nanoTime();
+			createOffspring();
+			recorder.addPhase(Phase.OFFSPRING, System.nanoTime() - phaseStart);
 
-				for (int i = 0; pointer < initial.length; i++)
-				{
-					initial[pointer] = nextFrontArray[i];
-					pointer++;
-				}
-			}
+			phaseStart = System.nanoTime();
+			evaluateSlots(numSolutions, 2 * numSolutions);
+			recorder.addPhase(Phase.EVALUATION, System.nanoTime() - phaseStart);
 
-			offspring = createOffspring(initial);
-			evaluatePopulation(offspring, false);
+			recorder.endGeneration(frontSize(), hypervolumeHistory[generations++]);
 
 
 //			if (currentEval % 1000 == 0 && !(currentEval == maxEvals))
-			if (currentEval % 100 == 0 && currentEval != 5000)
+			// only a new network changes the version, and so invalidates the predictions and has the population
+			// rescored; a model reloaded unchanged keeps them
+			if (evaluator == null && retrainInterval > 0 && currentEval > 0 && currentEval % retrainInterval == 0
+					&& model.go())
 			{
-				model.go();
+				System.out.println("surrogate retrained after generation " + generations);
 			}
-				
-//			if (currentEval == (maxEvals / 2))
-//			{
-//				System.out.println("MID-PROCESS EVALUATION");
-//				evaluatePopulation(initial, true);
-//				
-//				double[][] population = new double[initial.length][initial[0].getAlleles().length + 1];
-//				System.out.println(population.length + " " + population[0].length);
-//				for (int i = 0; i < population.length; i++)
-//				{
-//					for (int j = 0; j < initial[i].getAlleles().length; j++)
-//					{
-//						population[i][j] = initial[i].getAlleles()[j] ? 1 : 0;
-//					}
-//					population[i][initial.length] = initial[i].getFitness1();
-//				}
-//				
-//				model.retrain(population);
-//			}
 			
 			currentEval++;
 			// System.out.println("eval: " + currentEval);
 		}
 
 		System.out.println("DONE");
-		vp.updatePopulation(initial);
-		// displayPopulation(initial);
-
-//		for (Individual i : initial)
-//		{
-//			System.out.println(i.getFitness1() + " " + i.getFitness2());
-//		}
-
-		double lastPopulationHypervolume = Plotting.hypervolume(initial);
+		recorder.close();
+		// the model may have been retrained after the last selection
+		if (rescore())
+			sorting.sort(population.energy(), population.cost(), population.rank(), 0, numSolutions);
+		if (pool != sharedPool)
+			pool.shutdown();
+
+		double lastPopulationHypervolume = parentHypervolume();
+		Individual[] initial = population.toIndividuals(0, numSolutions);
 		
 		// TODO : boxplot
 		
@@ -181,15 +310,24 @@ public class NSGA2_E
 		System.out.println("Last:  " + lastPopulationHypervolume);
 		System.out.println("Improvement: " + (lastPopulationHypervolume - firstPopulationHypervolume));
 		
-		for (Individual i : initial)
-			if (i.rank == 0)
-				new FacadeUI(i);
-		
-		double mae = calculateMAE(initial);
-		
-		
+		// the surrogate is only worth validating if it drove the run
+		double mae = evaluator == null && validateSurrogate ? calculateMAE(initial) : Double.NaN;
+		if (evaluator instanceof MultiFidelityFitnessFunction)
+			System.out.println(evaluator);
+		if (prescreening())
+			System.out.println("Pre-screen: " + prescreenSimulated + " of " + prescreened + " offspring simulated");
+		if ((evaluator == null || prescreening()) && Metrics.SURROGATE_FALLBACKS.get() + Metrics.SURROGATE_OUT_OF_RANGE.get() > 0)
+			System.out.println("Surrogate: " + Metrics.SURROGATE_OUT_OF_RANGE.get() + " out of range, "
+					+ Metrics.SURROGATE_NAN.get() + " NaN, " + Metrics.SURROGATE_ERRORS.get() + " failed attempts, "
+					+ Metrics.SURROGATE_FALLBACKS.get() + " fallbacks");
 		
 		System.out.println("MAE " + mae);
+
+		System.out.println("Archive: " + archive.getSize() + " non-dominated solutions");
+
+		summary = new RunSummary(generations, evaluations, firstPopulationHypervolume, lastPopulationHypervolume,
+				mae, System.currentTimeMillis() - startTime, seed, archive.toIndividuals());
+		observer.finished(initial, summary);
 		
 //		System.out.println("Surrogate");
 //		for (Individual i : surrogate)
@@ -206,23 +344,39 @@ public class NSGA2_E
 //		}
 	}
 
+	/**
+	 * Compares the surrogate fitness of the passed population with EnergyPlus.
+	 * The population is evaluated through copies so it keeps its surrogate fitness.
+	 * 
+	 * @param initial The population evaluated with the surrogate model.
+	 * @return The mean difference between the EnergyPlus and the surrogate energy.
+	 */
 	private double calculateMAE(Individual[] initial)
 	{
 		double[] diff1 = new double[initial.length];
+		Individual[] simulated = new Individual[initial.length];
 		for (int i = 0; i < initial.length; i++)
+		{
 			diff1[i] = initial[i].getFitness1();
+			simulated[i] = new Individual(ff, initial[i].getAlleles());
+		}
 		
-		evaluatePopulation(initial, true);
+		evaluatePopulation(simulated, true);
 
 		double[] diff2 = new double[initial.length];
 		for (int i = 0; i < initial.length; i++)
-			diff2[i] = initial[i].getFitness1();
+			diff2[i] = simulated[i].getFitness1();
 		
 		double mae = 0;
+		int valid = 0;
 		for (int i = 0; i < initial.length; i++)
-			mae += (diff2[i] - diff1[i]);
+			if (!simulated[i].isInvalid()) // failed simulations say nothing about the surrogate
+			{
+				mae += (diff2[i] - diff1[i]);
+				valid++;
+			}
 		
-		mae /= initial.length;
+		mae /= valid;
 		
 		return mae;
 	}
@@ -256,27 +410,36 @@ public class NSGA2_E
 	 */
 	private void evaluatePopulation(Individual[] P, boolean energyplus)
 	{
+		evaluations += P.length;
+		evaluatePopulation(P, energyplus ? ff : null);
+	}
+
+	/**
+	 * This method evaluates the passed array of Individuals with a fitness function.
+	 * Uses Threads to evaluate a population faster.
+	 * 
+	 * @param P The population to evaluate.
+	 * @param fitness The fitness function to evaluate with, {@code null} to use the surrogate model.
+	 */
+	private void evaluatePopulation(Individual[] P, FitnessFunction fitness)
+	{
+		if (asyncEvaluation)
+		{
+			evaluateAsync(P, fitness);
+			return;
+		}
+
 		EvaluationThread[] evals = new EvaluationThread[numThreads];
-		int numberPerThreads = numSolutions / numThreads;
+		int numberPerThreads = P.length / numThreads;
 
-		if (!energyplus)
-			for (int i = 0; i < numThreads; i++)
-			{
-				evals[i] = new EvaluationThread(P, numberPerThreads * i,
-						((i < numThreads - 1)
-								? (numberPerThreads * (i + 1))
-								: P.length));
-				evals[i].start();
-			}
-		else
-			for (int i = 0; i < numThreads; i++)
-			{
-				evals[i] = new EvaluationThread(P, numberPerThreads * i,
-						((i < numThreads - 1)
-								? (numberPerThreads * (i + 1))
-								: P.length), true);
-				evals[i].start();
-			}
+		for (int i = 0; i < numThreads; i++)
+		{
+			evals[i] = new EvaluationThread(P, numberPerThreads * i,
+					((i < numThreads - 1)
+							? (numberPerThreads * (i + 1))
+							: P.length), fitness);
+			evals[i].start();
+		}
 
 		for (int i = 0; i < numThreads; i++)
 		{
@@ -293,259 +456,457 @@ public class NSGA2_E
 	}
 
 	/**
-	 * This method turns the passed front into an array of Individuals.
-	 * 
-	 * @param fronts The front of individuals.
+	 * Evaluates the passed array of Individuals in the asynchronous mode. Surrogate predictions are CPU bound and
+	 * run on the pool; simulations are launched one after the other, at most {@link #maxConcurrentSimulations} at a
+	 * time, and their completion is awaited without a thread per simulation.
 	 * 
-	 * @return An array of Individual objects.
+	 * @param P The population to evaluate.
+	 * @param fitness The fitness function to evaluate with, {@code null} to use the surrogate model.
 	 */
-	private Individual[] ascendList(List<List<Individual>> fronts)
+	private void evaluateAsync(Individual[] P, FitnessFunction fitness)
 	{
-		List<Individual> P = new ArrayList<>();
+		if (fitness == null)
+		{
+			pool.submit(() -> Arrays.stream(P).parallel().forEach(i -> i.surrogateEvaluate(model))).join();
+			return;
+		}
 
-		for (List<Individual> front : fronts)
-			for (Individual i : front)
-				P.add(i);
+		Semaphore permits = new Semaphore(maxConcurrentSimulations);
+		CompletableFuture<?>[] pending = new CompletableFuture<?>[P.length];
+		for (int k = 0; k < P.length; k++)
+		{
+			permits.acquireUninterruptibly();
+			try
+			{
+				pending[k] = P[k].energyPlusEvaluateAsync(fitness).whenComplete((v, e) -> permits.release());
+			}
+			catch (RuntimeException e)
+			{
+				// failed before handing back a future that would have released the permit
+				permits.release();
+				CompletableFuture<Void> failed = new CompletableFuture<>();
+				failed.completeExceptionally(e);
+				pending[k] = failed;
+			}
+		}
+		CompletableFuture.allOf(pending).join();
+	}
 
-		return P.toArray(new Individual[P.size()]);
+	/**
+	 * Counts the rank 0 parents.
+	 * 
+	 * @return The size of the first front.
+	 */
+	private int frontSize()
+	{
+		int size = 0;
+		for (int i = 0; i < numSolutions; i++)
+			if (population.getRank(i) == 0)
+				size++;
+		return size;
 	}
 
 	/**
-	 * This method sorts Individuals in order of their domination rank over each other using the non-dominated sort.
-	 * Individuals non dominated by others will be attributed the rank 0, the next ones rank 1, etc.
+	 * Computes the hypervolume of the rank 0 parents, as {@link Plotting#hypervolume(Individual[])} does.
 	 * 
-	 * @param pop The population to sort.
-	 * @return A list of list of fronts.
+	 * @return The hypervolume.
 	 */
-	private List<List<Individual>> nonDominatedSort(Individual[] pop)
+	private double parentHypervolume()
 	{
-		// Initialize
-		Set<Individual> assigned = new HashSet<Individual>(pop.length);
-		
-		// Keep track of what's been already assigned to a front
-		List<List<Individual>> fronts = new ArrayList<List<Individual>>();
-		fronts.add(new ArrayList<Individual>());// init first front
+		if (frontSlots.length < numSolutions)
+			frontSlots = new int[numSolutions];
+		int n = 0;
+		for (int i = 0; i < numSolutions; i++)
+			if (population.getRank(i) == 0)
+				frontSlots[n++] = i;
+		return Hypervolume2D.compute(frontSlots, n, population.energy(), population.cost(),
+				Plotting.REFERENCE_ENERGY, Plotting.REFERENCE_COST);
+	}
 
-		// ====== block A =========
-		// loop over all individuals in population and fill dom counts / sets
-		for (int _this = 0; _this < pop.length; _this++)
+	/**
+	 * Evaluates a range of slots with the surrogate model, on the pool.
+	 * 
+	 * @param from The first slot (inclusive).
+	 * @param to The last slot (exclusive).
+	 */
+	private void evaluateSlots(int from, int to)
+	{
+		if (evaluator == null)
 		{
-			pop[_this].dominationCount = 0;
-			pop[_this].dominatedSet = new HashSet<Individual>();
+			evaluations += to - from;
+			pool.invoke(new SurrogateTask(from, to, model.getVersion()));
+		}
+		else
+		{
+			int[] slots = prescreening() ? prescreen(from, to) : range(from, to);
+			evaluations += slots.length;
 
-			for (int _that = 0; _that < pop.length; _that++)
+			// simulations go through the Individual based evaluation threads
+			Individual[] batch = new Individual[slots.length];
+			for (int k = 0; k < slots.length; k++)
 			{
-				if (_this != _that)
-				{ // don't compare with self
-					if (pop[_this].dominates(pop[_that]))
-					{ // if _this dominates _that
-						pop[_this].dominatedSet.add(pop[_that]); // add _that to the set of solutions dominated by _this
-					} 
-					else if (pop[_that].dominates(pop[_this]))
-					{
-						pop[_this].dominationCount++; // increment the domination counter of _this
-					}
-				}
+				boolean[] alleles = new boolean[population.getGenomeLength()];
+				population.decode(slots[k], alleles);
+				batch[k] = new Individual(evaluator, alleles);
 			}
+			evaluatePopulation(batch, evaluator);
+			for (int k = 0; k < slots.length; k++)
+				population.setFitness(slots[k], batch[k]);
+		}
+
+		// a screened out prediction must not push simulated solutions out of the archive
+		for (int s = from; s < to; s++)
+			if (evaluator == null || !population.isEstimated(s))
+				archive.offer(population, s);
+	}
+
+	/**
+	 * @return {@code true} if the simulated offspring are pre-screened with the surrogate model.
+	 */
+	private boolean prescreening()
+	{
+		return evaluator != null && model != null && prescreenMargin >= 0;
+	}
+
+	private static int[] range(int from, int to)
+	{
+		int[] slots = new int[to - from];
+		for (int k = 0; k < slots.length; k++)
+			slots[k] = from + k;
+		return slots;
+	}
 
-			if (pop[_this].dominationCount == 0)
-			{ // _this belongs to the first front
-				pop[_this].rank = 0; 
-				fronts.get(0).add(pop[_this]);
-				assigned.add(pop[_this]);
+	/**
+	 * Predicts a range of slots with the surrogate model, on the pool, and picks the ones worth simulating: a slot
+	 * is simulated unless its predicted energy is more than {@link #prescreenMargin} above the energy of the
+	 * simulated parents' front at the same or a lower cost. The others keep their prediction, flagged as estimated.
+	 * Without a simulated front yet, e.g. for the initial population, every slot is simulated.
+	 * 
+	 * @param from The first slot (inclusive).
+	 * @param to The last slot (exclusive).
+	 * @return The slots to simulate.
+	 */
+	private int[] prescreen(int from, int to)
+	{
+		int n = simulatedFront();
+		if (n == 0)
+			return range(from, to);
+
+		pool.invoke(new SurrogateTask(from, to, model.getVersion()));
+
+		int[] slots = new int[to - from];
+		int kept = 0;
+		for (int s = from; s < to; s++)
+		{
+			// the front's cost decreases along it, find the first point at or below the slot's cost
+			double cost = population.getCost(s);
+			int lo = 0;
+			int hi = n;
+			while (lo < hi)
+			{
+				int mid = (lo + hi) >>> 1;
+				if (frontCost[mid] <= cost)
+					hi = mid;
+				else
+					lo = mid + 1;
 			}
+			if (lo == n || population.getEnergy(s) <= frontEnergy[lo] * (1 + prescreenMargin))
+				slots[kept++] = s;
 		}
 
-		// =========== block B ==========
-		int frontCounter = 0; // initialise the front counter; using base 0 not 1
-		for (List<Individual> fi = fronts.get(frontCounter); fi.size() > 0; fi = fronts.get(frontCounter))
-		{ 
-			List<Individual> Q = new ArrayList<Individual>(); // Used to store members of the next front
-			for (Individual p : fi)
+		prescreened += to - from;
+		prescreenSimulated += kept;
+		return Arrays.copyOf(slots, kept);
+	}
+
+	/**
+	 * Collects the non-dominated parents whose fitness was simulated into {@link #frontEnergy} and
+	 * {@link #frontCost}, by increasing energy and so decreasing cost.
+	 * 
+	 * @return The number of points of the front.
+	 */
+	private int simulatedFront()
+	{
+		int[] order = new int[numSolutions];
+		int m = 0;
+		for (int i = 0; i < numSolutions; i++)
+			if (!population.isEstimated(i) && !population.isInvalid(i) && !(population.violation()[i] > 0)
+					&& !Double.isNaN(population.getEnergy(i)))
+				order[m++] = i;
+
+		double[] energy = population.energy();
+		double[] cost = population.cost();
+		Integer[] sorted = new Integer[m];
+		for (int k = 0; k < m; k++)
+			sorted[k] = order[k];
+		Arrays.sort(sorted, (a, b) -> energy[a] != energy[b] ? Double.compare(energy[a], energy[b])
+				: Double.compare(cost[a], cost[b]));
+
+		if (frontEnergy.length < m)
+		{
+			frontEnergy = new double[m];
+			frontCost = new double[m];
+		}
+		int n = 0;
+		for (int k = 0; k < m; k++)
+		{
+			int s = sorted[k];
+			if (n == 0 || cost[s] < frontCost[n - 1])
 			{
-				for (Individual q : p.dominatedSet)
-				{
-					q.dominationCount--;
-					if (q.dominationCount == 0)
-					{
-						q.rank = frontCounter + 1;
-						Q.add(q);
-					}
-				}
+				frontEnergy[n] = energy[s];
+				frontCost[n] = cost[s];
+				n++;
 			}
-			frontCounter++;
-			fronts.add(frontCounter, Q);
 		}
-
-		return fronts;
+		return n;
 	}
 
 	/**
-	 * This method calculates the crowding distance for the List of fronts.
+	 * Re-scores the whole population, parents and offspring, if the surrogate model has been retrained since it
+	 * was scored, so that no fitness of an older model is compared with one of the current model. Genomes already
+	 * predicted by the current model are answered from the prediction cache.
 	 * 
-	 * @param individuals The front to calculate the distance.
+	 * @return {@code true} if the population was re-scored.
 	 */
-	private void crowdingDistance(List<Individual> individuals)
+	private boolean rescore()
 	{
-		Individual[] I = individuals
-				.toArray(new Individual[individuals.size()]);
+		if (evaluator != null || model.getVersion() == scoredVersion)
+			return false;
+		int version = model.getVersion();
+		pool.invoke(new SurrogateTask(0, population.getCapacity(), version));
+		scoredVersion = version;
+		return true;
+	}
 
-		int l = I.length;
+	/**
+	 * Fork/join task evaluating a range of slots with the surrogate model, through the prediction cache.
+	 */
+	private class SurrogateTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		/** Ranges up to this size are evaluated by a single task. */
+		private static final int THRESHOLD = 16;
+
+		private final int from;
+		private final int to;
+		/** The model version the predictions are made and looked up with. */
+		private final int version;
 
-		for (Individual i : I)
+		SurrogateTask(int from, int to, int version)
 		{
-			i.distance = 0;
+			this.from = from;
+			this.to = to;
+			this.version = version;
 		}
 
-		Arrays.sort(I, new Individual.Objective1Comparator());
-
-		I[0].distance = Double.POSITIVE_INFINITY;
-		I[l - 1].distance = Double.POSITIVE_INFINITY;
-
-		double fitness1Range = I[l - 1].getFitness1() - I[0].getFitness1();
-		for (int j = 1; j < l - 1; j++)
+		@Override
+		protected void compute()
 		{
-			I[j].distance += (I[j + 1].getFitness1() - I[j - 1].getFitness1())
-					/ fitness1Range;
+			if (to - from > THRESHOLD)
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new SurrogateTask(from, mid, version), new SurrogateTask(mid, to, version));
+				return;
+			}
+
+			long[] genomes = population.genomes();
+			int words = population.getWords();
+			int cells = geometry.getCellCount();
+			EvaluationLog log = EvaluationLog.current();
+			int hits = 0;
+			for (int s = from; s < to; s++)
+			{
+				long start = log != null ? System.nanoTime() : 0;
+				byte kind = EvaluationLog.CACHED_PREDICTION;
+				double energy = predictions.get(genomes, s * words, version);
+				if (Double.isNaN(energy))
+				{
+					energy = model.predict(genomes, s * words);
+					predictions.put(genomes, s * words, version, energy);
+					kind = EvaluationLog.SURROGATE;
+				}
+				else
+				{
+					hits++;
+				}
+				int windows = population.countWindows(s);
+				double cost = 100 * (cells - windows) + 350 * windows;
+				population.setFitness(s, energy, cost);
+				population.setEstimated(s, true);
+				if (log != null)
+					log.record(kind, genomes, s * words, System.nanoTime() - start, energy, cost);
+			}
+			Metrics.PREDICTION_CACHE_HITS.addAndGet(hits);
 		}
+	}
 
-		Arrays.sort(I, new Individual.Objective2Comparator());
+	/**
+	 * Creates the offspring of the parents into the offspring half of the population.
+	 * The pairs are produced in fixed size chunks, each drawing from its own random stream, so the offspring only
+	 * depend on the run seed and the round, not on how the chunks are scheduled. The chunks are generated in
+	 * parallel on the pool and written straight into their slots.
+	 */
+	private void createOffspring()
+	{
+		int round = offspringRound++;
 
-		I[0].distance = Double.POSITIVE_INFINITY;
-		I[l - 1].distance = Double.POSITIVE_INFINITY;
+		int pairs = (numSolutions + 1) / 2;
+		int chunks = (pairs + PAIRS_PER_CHUNK - 1) / PAIRS_PER_CHUNK;
+		VariationTask task = new VariationTask(round, 0, chunks);
+		if (chunks > 1)
+			pool.invoke(task);
+		else
+			task.compute();
+	}
 
-		double fitness2Range = I[l - 1].getFitness2() - I[0].getFitness2();
-		for (int j = 1; j < l - 1; j++)
+	/**
+	 * Fork/join task generating a range of offspring chunks, splitting in halves until a single chunk is left.
+	 */
+	private class VariationTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int round;
+		private final int fromChunk;
+		private final int toChunk;
+
+		/**
+		 * Constructor for the task.
+		 * 
+		 * @param round The offspring round the random streams are derived from.
+		 * @param fromChunk The first chunk, inclusive.
+		 * @param toChunk The last chunk, exclusive.
+		 */
+		VariationTask(int round, int fromChunk, int toChunk)
 		{
-			I[j].distance += (I[j + 1].getFitness2() - I[j - 1].getFitness2())
-					/ fitness2Range;
+			this.round = round;
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
 		}
 
+		@Override
+		protected void compute()
+		{
+			if (toChunk - fromChunk > 1)
+			{
+				int mid = (fromChunk + toChunk) >>> 1;
+				invokeAll(new VariationTask(round, fromChunk, mid), new VariationTask(round, mid, toChunk));
+				return;
+			}
+
+			int pairs = (numSolutions + 1) / 2;
+			SplittableRandom rng = streams.stream(RandomStreams.VARIATION, round, fromChunk);
+			int end = Math.min(pairs, (fromChunk + 1) * PAIRS_PER_CHUNK);
+			for (int pair = fromChunk * PAIRS_PER_CHUNK; pair < end; pair++)
+				createPair(numSolutions + 2 * pair, rng);
+		}
 	}
 
 	/**
-	 * Creates an offspring population from the passed population.
+	 * Creates two offspring into slots {@code slot} and {@code slot + 1}. If the population has an odd size the
+	 * second one has no slot; its random numbers are still drawn so every pair consumes the same amount.
 	 * 
-	 * @param parents The parent population to create the offspring population from.
-	 * @return The offspring population.
+	 * @param slot The slot of the first offspring.
+	 * @param rng The random stream of the chunk.
 	 */
-	private Individual[] createOffspring(Individual[] parents)
+	private void createPair(int slot, SplittableRandom rng)
 	{
-		Individual[] nextPopulation = new Individual[parents.length];
-
-		for (int i = 0; i < nextPopulation.length; i += 2)
-		{// replace half the population
-			// Parent 1
-			Individual parent1 = parentSelection(parents);
-			// Parent 2
-			Individual parent2 = parentSelection(parents);
+		int second = slot + 1 < population.getCapacity() ? slot + 1 : -1;
 
-			// Crossover
-			// TODO: play with different crossover strategies?
-			Individual[] offspring = crossover(parent1, parent2);
+		// Parent 1
+		int parent1 = parentSelection(rng);
+		// Parent 2
+		int parent2 = parentSelection(rng);
 
-			// Mutation
-			offspring[0] = mutateOffspring(offspring[0]);
-			offspring[1] = mutateOffspring(offspring[1]);
+		// Crossover
+		// TODO: play with different crossover strategies?
+		crossover(parent1, parent2, slot, rng);
+		crossover(parent1, parent2, second, rng);
 
-			nextPopulation[i] = offspring[0];
-			if (i < nextPopulation.length - 1)
-				nextPopulation[i + 1] = offspring[1];
-		}
-
-		return nextPopulation;
+		// Mutation, in place
+		mutate(slot, rng);
+		mutate(second, rng);
 	}
 
 	/**
 	 * Selects the parents for creating the offspring individual based on the selection rate.
 	 * 
-	 * @param P The parent population.
-	 * @return A random individual from the population.
+	 * @param r The random stream to draw from.
+	 * @return The slot of a random parent.
 	 */
-	private Individual parentSelection(Individual[] P)
+	private int parentSelection(SplittableRandom r)
 	{
-		int i = r.nextInt(P.length), j = r.nextInt(P.length);
+		int[] rank = population.rank();
+		int i = r.nextInt(numSolutions), j = r.nextInt(numSolutions);
 
 		while (i == j)
-			j = r.nextInt(P.length);
-
-		Individual p1 = P[i];
-		Individual p2 = P[j];
+			j = r.nextInt(numSolutions);
 
 		if (r.nextDouble() < selectionRate)
 		{
-			if (p1.rank <= p2.rank)
-				return p1;
+			if (rank[i] <= rank[j])
+				return i;
 			else
-				return p2;
+				return j;
 		} else
 		{
-			if (p1.rank <= p2.rank)
-				return p2;
+			if (rank[i] <= rank[j])
+				return j;
 			else
-				return p1;
+				return i;
 		}
 	}
 
 	/**
 	 * Picks which allele is carried over from the parent based on the crossover rate.
 	 * 
-	 * @param parent1 The first parent.
-	 * @param parent2 The second parent.
-	 * @return The offspring population.
+	 * @param parent1 The slot of the first parent.
+	 * @param parent2 The slot of the second parent.
+	 * @param child The slot receiving the offspring, -1 to only draw the random numbers.
+	 * @param r The random stream to draw from.
 	 */
-	private Individual[] crossover(Individual parent1, Individual parent2)
+	private void crossover(int parent1, int parent2, int child, SplittableRandom r)
 	{
-		boolean[] alleles1 = parent1.getAlleles();
-		boolean[] alleles2 = parent2.getAlleles();
+		long[] genomes = population.genomes();
+		int words = population.getWords();
+		int length = population.getGenomeLength();
+		int base1 = parent1 * words, base2 = parent2 * words;
 
-		boolean[] next1 = new boolean[alleles1.length];
-		boolean[] next2 = new boolean[alleles1.length];
-
-		// crossover
-		for (int b = 0; b < next1.length; b++)
+		for (int w = 0; w < words; w++)
 		{
-			if (r.nextDouble() < crossoverRate)
-				next1[b] = alleles1[b];
-			else
-				next1[b] = alleles2[b];
-		}
-		for (int b = 0; b < next2.length; b++)
-		{
-			if (r.nextDouble() < crossoverRate)
-				next2[b] = alleles1[b];
-			else
-				next2[b] = alleles2[b];
+			long a = genomes[base1 + w], b = genomes[base2 + w];
+			long mask = 0; // bits taken from the first parent
+			for (int bit = 0, end = Math.min(64, length - 64 * w); bit < end; bit++)
+				if (r.nextDouble() < crossoverRate)
+					mask |= 1L << bit;
+			if (child >= 0)
+				genomes[child * words + w] = (a & mask) | (b & ~mask);
 		}
-
-		Individual[] generatedOffspring = new Individual[2];
-		generatedOffspring[0] = new Individual(next1);
-		generatedOffspring[1] = new Individual(next2);
-
-		return generatedOffspring;
+		if (child >= 0)
+			population.invalidate(child);
 	}
 
 	/**
-	 * Mutates the individual based on the mutation rate.
+	 * Mutates the genome of an offspring in place based on the mutation rate.
 	 * 
-	 * @param offspring The offspring individual.
-	 * @return The possibly mutated offspring individual.
+	 * @param child The slot of the offspring, -1 to only draw the random numbers.
+	 * @param r The random stream to draw from.
 	 */
-	private Individual mutateOffspring(Individual offspring)
+	private void mutate(int child, SplittableRandom r)
 	{
-		boolean[] alleles = offspring.getAlleles();
-
-		boolean[] mutated = new boolean[alleles.length];
+		long[] genomes = population.genomes();
+		int words = population.getWords();
+		int length = population.getGenomeLength();
 
-		for (int i = 0; i < mutated.length; i++)
+		for (int w = 0; w < words; w++)
 		{
-			if (r.nextDouble() < mutationRate)
-				mutated[i] = !alleles[i];
-			else
-				mutated[i] = alleles[i];
+			long flip = 0;
+			for (int bit = 0, end = Math.min(64, length - 64 * w); bit < end; bit++)
+				if (r.nextDouble() < mutationRate)
+					flip |= 1L << bit;
+			if (child >= 0)
+				genomes[child * words + w] ^= flip;
 		}
-
-		return new Individual(mutated);
 	}
 
 	/**
@@ -561,8 +922,8 @@ public class NSGA2_E
 		private int startIndex;
 		/** The index in the array to start evaluating. */
 		private int endIndex;
-		/** Whether or not the evaluation has to use EnergyPlus. */
-		private boolean energyplus;
+		/** The fitness function to evaluate with, {@code null} for the surrogate model. */
+		private FitnessFunction fitness;
 
 		/**
 		 * Constructor for the EvaluationThread object. 
@@ -577,7 +938,7 @@ public class NSGA2_E
 			this.individuals = individuals;
 			this.startIndex = startIndex;
 			this.endIndex = endIndex;
-			this.energyplus = false;
+			this.fitness = null;
 		}
 		
 		/**
@@ -593,7 +954,24 @@ public class NSGA2_E
 			this.individuals = individuals;
 			this.startIndex = startIndex;
 			this.endIndex = endIndex;
-			this.energyplus = true;
+			this.fitness = ff;
+		}
+
+		/**
+		 * Constructor for the EvaluationThread object. 
+		 * Uses the passed fitness function to evaluate fitness.
+		 * 
+		 * @param individuals The population to evaluate.
+		 * @param startIndex The index to start evaluating from.
+		 * @param endIndex The index to stop evaluating from.
+		 * @param fitness The fitness function, {@code null} to use the surrogate model.
+		 */
+		public EvaluationThread(Individual[] individuals, int startIndex, int endIndex, FitnessFunction fitness)
+		{
+			this.individuals = individuals;
+			this.startIndex = startIndex;
+			this.endIndex = endIndex;
+			this.fitness = fitness;
 		}
 
 		public void run()
@@ -601,10 +979,10 @@ public class NSGA2_E
 			for (int j = startIndex; j < endIndex; j++)
 			{
 				Individual i = individuals[j];
-				if (!energyplus)
+				if (fitness == null)
 					i.surrogateEvaluate(model); // TODO
 				else
-					i.energyPlusEvaluate(ff);
+					i.energyPlusEvaluate(fitness);
 				// System.out.println("SINGLE INDIVIDUAL : " + i.getFitness1() +
 				// " " + i.getFitness2());
 			}
@@ -621,6 +999,216 @@ public class NSGA2_E
 		this.model = m;
 	}
 
+	/**
+	 * Mutator method for the pool the run's parallel work is done on. Concurrent runs given the same pool share its
+	 * threads instead of each starting one thread per core.
+	 * 
+	 * @param pool The pool, it is not shut down by the run; {@code null} to create one per run.
+	 */
+	public void setPool(ForkJoinPool pool)
+	{
+		this.sharedPool = pool;
+	}
+
+	/**
+	 * Mutator method for the retraining of the surrogate model during the run.
+	 * 
+	 * @param retrainInterval The number of generations between retrainings, 0 to never retrain.
+	 */
+	public void setRetrainInterval(int retrainInterval)
+	{
+		this.retrainInterval = retrainInterval;
+	}
+
+	/**
+	 * Mutator method for the final check of the surrogate, which simulates the final population with EnergyPlus.
+	 * 
+	 * @param validateSurrogate {@code true} to measure the surrogate's error on the final population.
+	 */
+	public void setValidateSurrogate(boolean validateSurrogate)
+	{
+		this.validateSurrogate = validateSurrogate;
+	}
+
+	/**
+	 * Mutator method for the population size.
+	 * 
+	 * @param numSolutions The number of parents (and of offspring) per generation.
+	 */
+	public void setNumSolutions(int numSolutions)
+	{
+		this.numSolutions = numSolutions;
+	}
+
+	/**
+	 * Mutator method for the length of the run.
+	 * 
+	 * @param maxEvals The number of generations.
+	 */
+	public void setMaxEvals(int maxEvals)
+	{
+		this.maxEvals = maxEvals;
+	}
+
+	/**
+	 * Accessor method for the statistics of the last run.
+	 * 
+	 * @return The summary, {@code null} until a run has finished.
+	 */
+	public RunSummary getSummary()
+	{
+		return summary;
+	}
+
+	/**
+	 * Mutator method for the grid of the Pareto archive. With a grid the archive keeps one solution per
+	 * non-dominated box, which bounds its size; without one it keeps every non-dominated solution.
+	 * 
+	 * @param energy The box size on the energy, 0 for no grid.
+	 * @param cost The box size on the cost, 0 for no grid.
+	 */
+	public void setArchiveEpsilon(double energy, double cost)
+	{
+		this.archiveEpsilonEnergy = energy;
+		this.archiveEpsilonCost = cost;
+	}
+
+	/**
+	 * Mutator method for the size of the prediction cache.
+	 * 
+	 * @param predictionCacheSize The number of surrogate predictions remembered, rounded up to a power of two.
+	 */
+	public void setPredictionCacheSize(int predictionCacheSize)
+	{
+		this.predictionCacheSize = predictionCacheSize;
+	}
+
+	/**
+	 * Mutator method for the fitness function the generations are evaluated with.
+	 * 
+	 * @param evaluator The fitness function, e.g. EnergyPlus or a {@link MultiFidelityFitnessFunction}; {@code null} to use the surrogate model.
+	 */
+	public void setEvaluator(FitnessFunction evaluator)
+	{
+		this.evaluator = evaluator;
+	}
+
+	/**
+	 * Mutator method for the surrogate pre-screen of simulated offspring. It needs a surrogate model as well as an
+	 * evaluator.
+	 * 
+	 * @param prescreenMargin How far above the simulated front, as a fraction of its energy, a predicted offspring
+	 *        may be and still be simulated; larger is safer and more expensive. Negative to simulate every
+	 *        offspring.
+	 */
+	public void setPrescreenMargin(double prescreenMargin)
+	{
+		this.prescreenMargin = prescreenMargin;
+	}
+
+	/**
+	 * Mutator method for the evaluation mode.
+	 * 
+	 * @param asyncEvaluation {@code true} to run simulations asynchronously and surrogate predictions on the pool,
+	 *        {@code false} to split every batch over {@link #numThreads} evaluation threads.
+	 */
+	public void setAsyncEvaluation(boolean asyncEvaluation)
+	{
+		this.asyncEvaluation = asyncEvaluation;
+	}
+
+	/**
+	 * Mutator method for the number of simulations in flight at once in the asynchronous mode.
+	 * 
+	 * @param maxConcurrentSimulations The limit, the number of cores by default.
+	 */
+	public void setMaxConcurrentSimulations(int maxConcurrentSimulations)
+	{
+		this.maxConcurrentSimulations = Math.max(1, maxConcurrentSimulations);
+	}
+
+	/**
+	 * Mutator method for the environmental selection strategy.
+	 * 
+	 * @param hypervolumeSelection {@code true} to truncate the last front by hypervolume contribution, {@code false} to use the crowding distance.
+	 */
+	public void setHypervolumeSelection(boolean hypervolumeSelection)
+	{
+		this.hypervolumeSelection = hypervolumeSelection;
+	}
+
+	/**
+	 * Accessor method for the hypervolume recorded after every generation of the last run.
+	 * 
+	 * @return The hypervolume of each generation's rank 0 individuals.
+	 */
+	public double[] getHypervolumeHistory()
+	{
+		return Arrays.copyOf(hypervolumeHistory, generations);
+	}
+
+	/**
+	 * Mutator method for the per-generation metrics output.
+	 * The file is written as CSV if its name ends in {@code .csv}, as JSON lines otherwise.
+	 * 
+	 * @param metricsFile The path of the metrics file, {@code null} to only publish the metrics through JMX.
+	 */
+	public void setMetricsFile(String metricsFile)
+	{
+		this.metricsFile = metricsFile;
+	}
+
+	/**
+	 * Mutator method for the run seed. Two runs with the same seed and settings produce the same populations.
+	 * 
+	 * @param seed The seed.
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Accessor method for the run seed.
+	 * 
+	 * @return The seed of the last (or next) run.
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * Mutator method for the run mode.
+	 * 
+	 * @param headless {@code true} to run without windows and write a report instead, {@code false} to show the results.
+	 */
+	public void setHeadless(boolean headless)
+	{
+		this.headless = headless;
+	}
+
+	/**
+	 * Mutator method for the file the headless report is written to.
+	 * 
+	 * @param reportFile The path of the report.
+	 */
+	public void setReportFile(String reportFile)
+	{
+		this.reportFile = reportFile;
+	}
+
+	/**
+	 * Mutator method for the PNG gallery of the headless report. Drawing it loads AWT's imaging, which a batch node
+	 * may not have, so it is off by default.
+	 * 
+	 * @param reportGallery {@code true} to draw the archive's facades next to the report.
+	 */
+	public void setReportGallery(boolean reportGallery)
+	{
+		this.reportGallery = reportGallery;
+	}
+
 	private void displayPopulation(Individual[] P)
 	{
 		for (Individual i : P)
@@ -0,0 +1,164 @@
+package Optimisation;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * External archive of the non-dominated solutions evaluated during a run, for two minimised objectives.
+ *
+ * The members are kept in a tree on the energy. Along it the cost strictly decreases, so a new point is dominated
+ * exactly when its floor entry has a cost no higher than its own, and the members it dominates are the entries
+ * that directly follow it. An insertion is a lookup plus the removal of the points it dominates, each of which was
+ * inserted once, so it costs O(log n) amortised.
+ *
+ * With an ε grid the objectives are first snapped to boxes of the given sizes and the archive keeps at most one
+ * solution per non-dominated box (ε-dominance after Laumanns et al.), which bounds its size by the number of boxes
+ * across the objective ranges. Within a box the solution that dominates the other, or else the one closest to the
+ * box's lower corner, is kept.
+ */
+public class ParetoArchive
+{
+	/** A member of the archive. */
+	private static final class Member
+	{
+		/** The box cost; the cost itself without a grid. */
+		final double boxCost;
+		final double energy;
+		final double cost;
+		final long[] genome;
+		final boolean estimated;
+
+		Member(double boxCost, double energy, double cost, long[] genome, boolean estimated)
+		{
+			this.boxCost = boxCost;
+			this.energy = energy;
+			this.cost = cost;
+			this.genome = genome;
+			this.estimated = estimated;
+		}
+	}
+
+	/** Box size on the energy, 0 for the exact archive. */
+	private final double epsilonEnergy;
+	/** Box size on the cost, 0 for the exact archive. */
+	private final double epsilonCost;
+	/** The members by box energy; the box cost strictly decreases along it. */
+	private final TreeMap<Double, Member> members = new TreeMap<>();
+	/** Number of bits per genome of the members. */
+	private int length;
+
+	/**
+	 * Constructor for an exact archive, which keeps every non-dominated solution.
+	 */
+	public ParetoArchive()
+	{
+		this(0, 0);
+	}
+
+	/**
+	 * Constructor for an ε-dominance archive.
+	 *
+	 * @param epsilonEnergy The box size on the energy, 0 for no grid.
+	 * @param epsilonCost The box size on the cost, 0 for no grid.
+	 */
+	public ParetoArchive(double epsilonEnergy, double epsilonCost)
+	{
+		this.epsilonEnergy = epsilonEnergy;
+		this.epsilonCost = epsilonCost;
+	}
+
+	/**
+	 * Offers an evaluated slot to the archive. Infeasible slots and slots without a fitness are refused.
+	 *
+	 * @param population The population holding the slot.
+	 * @param slot The slot.
+	 * @return {@code true} if the solution was archived.
+	 */
+	public synchronized boolean offer(Population population, int slot)
+	{
+		double energy = population.getEnergy(slot);
+		double cost = population.getCost(slot);
+		double violation = population.violation()[slot];
+		if (population.isInvalid(slot) || Double.isNaN(energy) || Double.isNaN(cost) || violation > 0)
+			return false;
+
+		double boxEnergy = box(energy, epsilonEnergy);
+		double boxCost = box(cost, epsilonCost);
+
+		Map.Entry<Double, Member> floor = members.floorEntry(boxEnergy);
+		if (floor != null && floor.getValue().boxCost <= boxCost)
+		{
+			Member old = floor.getValue();
+			if (floor.getKey() != boxEnergy || old.boxCost != boxCost || !replaces(energy, cost, old, boxEnergy, boxCost))
+				return false;
+		}
+
+		// the members the new point dominates follow it on the energy axis
+		Map.Entry<Double, Member> next;
+		while ((next = members.ceilingEntry(boxEnergy)) != null && next.getValue().boxCost >= boxCost)
+			members.remove(next.getKey());
+
+		int words = population.getWords();
+		long[] genome = new long[words];
+		System.arraycopy(population.genomes(), slot * words, genome, 0, words);
+		length = population.getGenomeLength();
+		members.put(boxEnergy, new Member(boxCost, energy, cost, genome, population.isEstimated(slot)));
+		return true;
+	}
+
+	/**
+	 * Decides between two solutions of the same box.
+	 *
+	 * @return {@code true} if the new solution should take the place of the member.
+	 */
+	private boolean replaces(double energy, double cost, Member old, double boxEnergy, double boxCost)
+	{
+		if (energy <= old.energy && cost <= old.cost)
+			return energy < old.energy || cost < old.cost;
+		if (old.energy <= energy && old.cost <= cost)
+			return false;
+		// neither dominates, keep the one closer to the corner of the box
+		double corner1 = boxEnergy * epsilonEnergy;
+		double corner2 = boxCost * epsilonCost;
+		return distance(energy, cost, corner1, corner2) < distance(old.energy, old.cost, corner1, corner2);
+	}
+
+	private double distance(double energy, double cost, double corner1, double corner2)
+	{
+		double d1 = epsilonEnergy > 0 ? (energy - corner1) / epsilonEnergy : 0;
+		double d2 = epsilonCost > 0 ? (cost - corner2) / epsilonCost : 0;
+		return d1 * d1 + d2 * d2;
+	}
+
+	private static double box(double value, double epsilon)
+	{
+		return epsilon > 0 ? Math.floor(value / epsilon) : value;
+	}
+
+	/**
+	 * @return The number of solutions archived.
+	 */
+	public synchronized int getSize()
+	{
+		return members.size();
+	}
+
+	/**
+	 * Creates detached {@link Individual}s of the archive.
+	 *
+	 * @return The members as rank 0 individuals, by increasing energy.
+	 */
+	public synchronized Individual[] toIndividuals()
+	{
+		Individual[] individuals = new Individual[members.size()];
+		int k = 0;
+		for (Member m : members.values())
+		{
+			boolean[] alleles = new boolean[length];
+			for (int b = 0; b < length; b++)
+				alleles[b] = (m.genome[b >>> 6] & (1L << b)) != 0;
+			individuals[k++] = new Individual(alleles, m.energy, m.cost, 0, m.estimated, false, 0, 0);
+		}
+		return individuals;
+	}
+}
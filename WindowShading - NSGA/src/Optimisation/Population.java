@@ -0,0 +1,407 @@
+package Optimisation;
+
+import java.util.SplittableRandom;
+
+import WindowShading.FacadeGeometry;
+
+/**
+ * The individuals of a run stored column-wise: one packed bit string per slot in a single {@code long[]}, and one
+ * primitive array each for the energy, the cost, the constraint violation, the estimated and invalid flags, the rank
+ * and the crowding distance.
+ *
+ * Slots {@code [0, size)} hold the parents and slots {@code [size, 2 * size)} the offspring, so the whole container
+ * is the combined population NSGA-II selects from. Selection copies the survivors into a second set of arrays of
+ * the same shape and swaps the two, so no array is allocated once the run is going. {@link Individual} objects are
+ * only created by {@link #toIndividual(int)} for code outside the optimiser core.
+ */
+public class Population
+{
+	/** The façade the genomes describe. */
+	private final FacadeGeometry geometry;
+	/** Number of parents, half the capacity. */
+	private final int size;
+	/** Number of bits per genome. */
+	private final int length;
+	/** Number of longs per genome. */
+	private final int words;
+
+	private long[] genomes;
+	private double[] energy;
+	private double[] cost;
+	private double[] violation;
+	private boolean[] estimated;
+	private boolean[] invalid;
+	private int[] rank;
+	private double[] distance;
+
+	// the other buffer, survivors are copied in here and then the buffers are swapped
+	private long[] nextGenomes;
+	private double[] nextEnergy;
+	private double[] nextCost;
+	private double[] nextViolation;
+	private boolean[] nextEstimated;
+	private boolean[] nextInvalid;
+	private int[] nextRank;
+	private double[] nextDistance;
+
+	/**
+	 * Constructor for an empty population.
+	 *
+	 * @param geometry The façade the genomes describe.
+	 * @param size The number of parents (and of offspring).
+	 */
+	public Population(FacadeGeometry geometry, int size)
+	{
+		this.geometry = geometry;
+		this.size = size;
+		this.length = geometry.getGenomeLength();
+		this.words = (length + 63) >>> 6;
+
+		int capacity = 2 * size;
+		genomes = new long[capacity * words];
+		energy = new double[capacity];
+		cost = new double[capacity];
+		violation = new double[capacity];
+		estimated = new boolean[capacity];
+		invalid = new boolean[capacity];
+		rank = new int[capacity];
+		distance = new double[capacity];
+
+		nextGenomes = new long[capacity * words];
+		nextEnergy = new double[capacity];
+		nextCost = new double[capacity];
+		nextViolation = new double[capacity];
+		nextEstimated = new boolean[capacity];
+		nextInvalid = new boolean[capacity];
+		nextRank = new int[capacity];
+		nextDistance = new double[capacity];
+	}
+
+	public FacadeGeometry getGeometry()
+	{
+		return geometry;
+	}
+
+	/**
+	 * @return The number of parents.
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * @return The number of slots, parents and offspring.
+	 */
+	public int getCapacity()
+	{
+		return 2 * size;
+	}
+
+	/**
+	 * @return The number of bits per genome.
+	 */
+	public int getGenomeLength()
+	{
+		return length;
+	}
+
+	/**
+	 * @return The number of longs per genome.
+	 */
+	int getWords()
+	{
+		return words;
+	}
+
+	// ************* columns, for the optimiser core *************
+
+	/**
+	 * @return The packed genomes, slot {@code s} occupies words {@code [s * getWords(), (s + 1) * getWords())}.
+	 */
+	long[] genomes()
+	{
+		return genomes;
+	}
+
+	double[] energy()
+	{
+		return energy;
+	}
+
+	double[] cost()
+	{
+		return cost;
+	}
+
+	double[] violation()
+	{
+		return violation;
+	}
+
+	int[] rank()
+	{
+		return rank;
+	}
+
+	double[] distance()
+	{
+		return distance;
+	}
+
+	// ************* slots *************
+
+	public double getEnergy(int slot)
+	{
+		return energy[slot];
+	}
+
+	public double getCost(int slot)
+	{
+		return cost[slot];
+	}
+
+	public boolean isEstimated(int slot)
+	{
+		return estimated[slot];
+	}
+
+	/**
+	 * @param slot The slot.
+	 * @return {@code true} if the slot could not be evaluated; its energy and cost are {@code NaN} and it ranks
+	 *         behind every valid slot.
+	 */
+	public boolean isInvalid(int slot)
+	{
+		return invalid[slot];
+	}
+
+	public int getRank(int slot)
+	{
+		return rank[slot];
+	}
+
+	/**
+	 * Reads one bit of a genome.
+	 *
+	 * @param slot The slot.
+	 * @param bit The bit index.
+	 * @return {@code true} if the bit is set.
+	 */
+	public boolean get(int slot, int bit)
+	{
+		return (genomes[slot * words + (bit >>> 6)] & (1L << bit)) != 0;
+	}
+
+	/**
+	 * Unpacks a genome.
+	 *
+	 * @param slot The slot.
+	 * @param alleles Receives the bits, at least {@link #getGenomeLength()} long.
+	 */
+	public void decode(int slot, boolean[] alleles)
+	{
+		int base = slot * words;
+		for (int b = 0; b < length; b++)
+			alleles[b] = (genomes[base + (b >>> 6)] & (1L << b)) != 0;
+	}
+
+	/**
+	 * Packs a genome into a slot and clears its fitness.
+	 *
+	 * @param slot The slot.
+	 * @param alleles The bits, at least {@link #getGenomeLength()} long.
+	 */
+	public void encode(int slot, boolean[] alleles)
+	{
+		int base = slot * words;
+		for (int w = 0; w < words; w++)
+			genomes[base + w] = 0;
+		for (int b = 0; b < length; b++)
+			if (alleles[b])
+				genomes[base + (b >>> 6)] |= 1L << b;
+		invalidate(slot);
+	}
+
+	/**
+	 * Fills a slot with a random layout whose window probability ramps up along the genome, as
+	 * {@link Individual#Individual(int, SplittableRandom)} does.
+	 *
+	 * @param slot The slot.
+	 * @param r The random stream to draw from.
+	 */
+	public void randomise(int slot, SplittableRandom r)
+	{
+		int base = slot * words;
+		for (int w = 0; w < words; w++)
+			genomes[base + w] = 0;
+		double ramp = length / 1.2;
+		for (int b = 0; b < length; b++)
+			if (r.nextDouble() < (b / ramp))
+				genomes[base + (b >>> 6)] |= 1L << b;
+		invalidate(slot);
+	}
+
+	/**
+	 * Clears the genome and the fitness of a slot.
+	 *
+	 * @param slot The slot.
+	 */
+	public void clear(int slot)
+	{
+		int base = slot * words;
+		for (int w = 0; w < words; w++)
+			genomes[base + w] = 0;
+		invalidate(slot);
+	}
+
+	/**
+	 * Marks a slot as not evaluated.
+	 *
+	 * @param slot The slot.
+	 */
+	void invalidate(int slot)
+	{
+		energy[slot] = Double.NaN;
+		cost[slot] = Double.NaN;
+		violation[slot] = Double.NaN;
+		estimated[slot] = false;
+		invalid[slot] = false;
+		rank[slot] = 0;
+		distance[slot] = 0;
+	}
+
+	/**
+	 * Counts the windows of a genome, straight from the packed bits.
+	 *
+	 * @param slot The slot.
+	 * @return The number of window bits set.
+	 */
+	public int countWindows(int slot)
+	{
+		int cells = geometry.getCellCount();
+		int base = slot * words;
+		int count = 0;
+		int full = cells >>> 6;
+		for (int w = 0; w < full; w++)
+			count += Long.bitCount(genomes[base + w]);
+		if ((cells & 63) != 0)
+			count += Long.bitCount(genomes[base + full] & ((1L << cells) - 1));
+		return count;
+	}
+
+	/**
+	 * Stores the fitness of a slot.
+	 *
+	 * @param slot The slot.
+	 * @param energy The energy consumption.
+	 * @param cost The production cost.
+	 */
+	public void setFitness(int slot, double energy, double cost)
+	{
+		this.energy[slot] = energy;
+		this.cost[slot] = cost;
+	}
+
+	/**
+	 * Stores the fitness of a slot as evaluated on an individual holding the slot's genome.
+	 *
+	 * @param slot The slot.
+	 * @param individual The evaluated individual.
+	 */
+	public void setFitness(int slot, Individual individual)
+	{
+		energy[slot] = individual.getFitness1();
+		cost[slot] = individual.getFitness2();
+		violation[slot] = individual.getOverallConstraintViolation();
+		estimated[slot] = individual.isEstimated();
+		invalid[slot] = individual.isInvalid();
+	}
+
+	/**
+	 * Flags the energy of a slot as an estimate.
+	 *
+	 * @param slot The slot.
+	 * @param estimated {@code true} if the energy was not simulated at full fidelity.
+	 */
+	public void setEstimated(int slot, boolean estimated)
+	{
+		this.estimated[slot] = estimated;
+	}
+
+	/**
+	 * Makes the listed slots the parents of the next generation: slot {@code survivors[k]} is moved to slot
+	 * {@code k} with its genome, fitness, rank and distance. The offspring half is left with stale contents.
+	 *
+	 * @param survivors The slots that survive, exactly {@link #getSize()} of them.
+	 */
+	void survive(int[] survivors)
+	{
+		for (int k = 0; k < size; k++)
+		{
+			int s = survivors[k];
+			System.arraycopy(genomes, s * words, nextGenomes, k * words, words);
+			nextEnergy[k] = energy[s];
+			nextCost[k] = cost[s];
+			nextViolation[k] = violation[s];
+			nextEstimated[k] = estimated[s];
+			nextInvalid[k] = invalid[s];
+			nextRank[k] = rank[s];
+			nextDistance[k] = distance[s];
+		}
+
+		long[] g = genomes;
+		genomes = nextGenomes;
+		nextGenomes = g;
+		double[] d = energy;
+		energy = nextEnergy;
+		nextEnergy = d;
+		d = cost;
+		cost = nextCost;
+		nextCost = d;
+		d = violation;
+		violation = nextViolation;
+		nextViolation = d;
+		boolean[] b = estimated;
+		estimated = nextEstimated;
+		nextEstimated = b;
+		b = invalid;
+		invalid = nextInvalid;
+		nextInvalid = b;
+		int[] i = rank;
+		rank = nextRank;
+		nextRank = i;
+		d = distance;
+		distance = nextDistance;
+		nextDistance = d;
+	}
+
+	/**
+	 * Creates a detached {@link Individual} holding a copy of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The individual.
+	 */
+	public Individual toIndividual(int slot)
+	{
+		boolean[] alleles = new boolean[length];
+		decode(slot, alleles);
+		return new Individual(alleles, energy[slot], cost[slot], violation[slot], estimated[slot], invalid[slot],
+				rank[slot], distance[slot]);
+	}
+
+	/**
+	 * Creates detached {@link Individual}s for a range of slots.
+	 *
+	 * @param from The first slot (inclusive).
+	 * @param to The last slot (exclusive).
+	 * @return The individuals.
+	 */
+	public Individual[] toIndividuals(int from, int to)
+	{
+		Individual[] individuals = new Individual[to - from];
+		for (int s = from; s < to; s++)
+			individuals[s - from] = toIndividual(s);
+		return individuals;
+	}
+}
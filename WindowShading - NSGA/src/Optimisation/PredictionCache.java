@@ -0,0 +1,115 @@
+package Optimisation;
+
+import java.util.Arrays;
+
+/**
+ * Bounded memory of surrogate predictions keyed by the packed genome and the version of the model that made them.
+ *
+ * The table is direct mapped: a genome hashes to exactly one entry, and a new prediction replaces whatever that
+ * entry held, so the memory never grows past its capacity and the genomes that keep recurring (surviving parents,
+ * the children crossover rebuilds) are the ones that stay. A prediction only answers a lookup made with the same
+ * model version, so retraining the model invalidates every entry at once without clearing anything. The entries
+ * are guarded by striped locks, so the evaluation tasks of the pool can share one cache.
+ */
+public class PredictionCache
+{
+	/** Number of locks the entries are spread over, a power of two. */
+	private static final int STRIPES = 64;
+
+	/** Number of longs per genome. */
+	private final int words;
+	/** Number of entries minus one, the capacity is a power of two. */
+	private final int mask;
+	/** The genome of every entry, entry {@code e} occupies words {@code [e * words, (e + 1) * words)}. */
+	private final long[] keys;
+	/** The model version of every entry, -1 for an empty entry. */
+	private final int[] versions;
+	/** The prediction of every entry. */
+	private final double[] values;
+	private final Object[] locks = new Object[STRIPES];
+
+	/**
+	 * Constructor for an empty cache.
+	 *
+	 * @param words The number of longs per packed genome.
+	 * @param capacity The number of predictions kept, rounded up to a power of two.
+	 */
+	public PredictionCache(int words, int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(STRIPES, capacity - 1) << 1);
+		this.words = words;
+		this.mask = size - 1;
+		keys = new long[size * words];
+		versions = new int[size];
+		values = new double[size];
+		Arrays.fill(versions, -1);
+		for (int i = 0; i < STRIPES; i++)
+			locks[i] = new Object();
+	}
+
+	/**
+	 * @return The number of predictions the cache can hold.
+	 */
+	public int getCapacity()
+	{
+		return mask + 1;
+	}
+
+	/**
+	 * Looks up the prediction of a genome.
+	 *
+	 * @param genomes The packed genomes, as held by {@link Population}.
+	 * @param offset The index of the genome's first word.
+	 * @param version The version of the model the prediction must come from.
+	 * @return The prediction, {@code NaN} if there is none for this genome and version.
+	 */
+	public double get(long[] genomes, int offset, int version)
+	{
+		int entry = index(genomes, offset);
+		synchronized (locks[entry & (STRIPES - 1)])
+		{
+			if (versions[entry] != version || !matches(entry, genomes, offset))
+				return Double.NaN;
+			return values[entry];
+		}
+	}
+
+	/**
+	 * Remembers the prediction of a genome, evicting the one it collides with.
+	 *
+	 * @param genomes The packed genomes, as held by {@link Population}.
+	 * @param offset The index of the genome's first word.
+	 * @param version The version of the model that made the prediction.
+	 * @param value The prediction.
+	 */
+	public void put(long[] genomes, int offset, int version, double value)
+	{
+		int entry = index(genomes, offset);
+		synchronized (locks[entry & (STRIPES - 1)])
+		{
+			System.arraycopy(genomes, offset, keys, entry * words, words);
+			versions[entry] = version;
+			values[entry] = value;
+		}
+	}
+
+	private boolean matches(int entry, long[] genomes, int offset)
+	{
+		int base = entry * words;
+		for (int w = 0; w < words; w++)
+			if (keys[base + w] != genomes[offset + w])
+				return false;
+		return true;
+	}
+
+	private int index(long[] genomes, int offset)
+	{
+		long h = 0;
+		for (int w = 0; w < words; w++)
+		{
+			h = (h ^ genomes[offset + w]) * 0x9E3779B97F4A7C15L;
+			h ^= h >>> 32;
+		}
+		return (int) h & mask;
+	}
+}
@@ -0,0 +1,66 @@
+package Optimisation;
+
+import java.util.SplittableRandom;
+
+/**
+ * Source of all randomness of a run. Every stream is derived from the run seed and the coordinates of the work
+ * it is used for (what it is for, which generation, which chunk of the population), never from the order in
+ * which threads ask for it, so a run is reproduced bit for bit from its seed however the work is scheduled.
+ */
+public final class RandomStreams
+{
+	/** Stream purposes. */
+	public static final int INITIALISATION = 1;
+	public static final int VARIATION = 2;
+
+	/** The run seed. */
+	private final long seed;
+
+	/**
+	 * Constructor for the streams of a run.
+	 *
+	 * @param seed The run seed.
+	 */
+	public RandomStreams(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Accessor method for the run seed.
+	 *
+	 * @return The seed the streams derive from.
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * Creates the stream for a piece of work. The same arguments always give the same stream; different
+	 * arguments give statistically independent streams.
+	 *
+	 * @param purpose What the stream is for, one of the constants of this class.
+	 * @param generation The generation.
+	 * @param chunk The chunk of the population.
+	 * @return A new generator.
+	 */
+	public SplittableRandom stream(int purpose, long generation, long chunk)
+	{
+		long h = mix(seed ^ 0x9E3779B97F4A7C15L * purpose);
+		h = mix(h ^ generation);
+		h = mix(h ^ chunk);
+		return new SplittableRandom(h);
+	}
+
+	/**
+	 * The SplitMix64 finaliser, spreads every input bit over the whole output.
+	 */
+	private static long mix(long z)
+	{
+		z += 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,26 @@
+package Optimisation;
+
+/**
+ * Receives the outcome of an optimisation run. Graphical observers live in the plotting package and are only
+ * loaded when a run asks for them, so headless runs never initialise AWT.
+ */
+public interface RunObserver
+{
+	/**
+	 * Called once the run has finished.
+	 * 
+	 * @param population The final population.
+	 * @param summary The statistics of the run.
+	 */
+	void finished(Individual[] population, RunSummary summary);
+
+	/**
+	 * The mailbox the optimiser publishes a snapshot to after every generation.
+	 * 
+	 * @return The mailbox, {@code null} if the observer does not follow the run live.
+	 */
+	default SnapshotMailbox liveView()
+	{
+		return null;
+	}
+}
@@ -0,0 +1,84 @@
+package Optimisation;
+
+/**
+ * Statistics of a finished optimisation run.
+ */
+public final class RunSummary
+{
+	private final int generations;
+	private final long evaluations;
+	private final double firstHypervolume;
+	private final double lastHypervolume;
+	private final double mae;
+	private final long elapsedMillis;
+	private final long seed;
+	private final Individual[] archive;
+
+	/**
+	 * Constructor for the run statistics.
+	 * 
+	 * @param generations The number of generations run.
+	 * @param evaluations The number of fitness evaluations performed.
+	 * @param firstHypervolume The hypervolume of the initial population.
+	 * @param lastHypervolume The hypervolume of the final population.
+	 * @param mae The mean error of the surrogate on the final population, {@code NaN} if not measured.
+	 * @param elapsedMillis The wall time of the run.
+	 * @param seed The seed the run was started with.
+	 * @param archive The non-dominated solutions of every generation, by increasing energy.
+	 */
+	public RunSummary(int generations, long evaluations, double firstHypervolume,
+			double lastHypervolume, double mae, long elapsedMillis, long seed, Individual[] archive)
+	{
+		this.generations = generations;
+		this.evaluations = evaluations;
+		this.firstHypervolume = firstHypervolume;
+		this.lastHypervolume = lastHypervolume;
+		this.mae = mae;
+		this.elapsedMillis = elapsedMillis;
+		this.seed = seed;
+		this.archive = archive;
+	}
+
+	public int getGenerations()
+	{
+		return generations;
+	}
+
+	public long getEvaluations()
+	{
+		return evaluations;
+	}
+
+	public double getFirstHypervolume()
+	{
+		return firstHypervolume;
+	}
+
+	public double getLastHypervolume()
+	{
+		return lastHypervolume;
+	}
+
+	public double getMAE()
+	{
+		return mae;
+	}
+
+	public long getElapsedMillis()
+	{
+		return elapsedMillis;
+	}
+
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * @return The best solutions seen during the run, which the final population may have lost.
+	 */
+	public Individual[] getArchive()
+	{
+		return archive;
+	}
+}
@@ -0,0 +1,32 @@
+package Optimisation;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free single slot hand-over from the optimiser to a live view. Publishing never waits and overwrites a
+ * snapshot the view has not picked up yet, so a slow view only ever skips generations.
+ */
+public class SnapshotMailbox
+{
+	private final AtomicReference<GenerationSnapshot> slot = new AtomicReference<>();
+
+	/**
+	 * Replaces whatever snapshot is waiting with the passed one.
+	 * 
+	 * @param snapshot The newest snapshot.
+	 */
+	public void publish(GenerationSnapshot snapshot)
+	{
+		slot.set(snapshot);
+	}
+
+	/**
+	 * Takes the waiting snapshot, if any.
+	 * 
+	 * @return The newest snapshot not taken yet, {@code null} if there is none.
+	 */
+	public GenerationSnapshot take()
+	{
+		return slot.getAndSet(null);
+	}
+}
@@ -6,8 +6,14 @@
 package Optimisation;
 
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
 import java.math.BigDecimal;
 import javax.swing.JFrame;
+import javax.swing.Timer;
 
 /**
  *
@@ -33,7 +39,12 @@ public class VisualisePopulation extends JFrame
 	@SuppressWarnings("unused")
 	private int pointHeight;
 	private static final double POINT_SIZE_AS_FRACTION_OF_WINDOW_SIZE = 0.01;
-	private Individual[] population;
+	/** The objectives shown; replaced as a whole, never modified. */
+	private transient volatile GenerationSnapshot snapshot;
+	/** Off-screen image the plot is drawn into before it is copied to the window. */
+	private transient BufferedImage backBuffer;
+	/** Polls the live mailbox, {@code null} unless the view follows a run. */
+	private Timer liveTimer;
 
 	public VisualisePopulation()
 	{
@@ -52,8 +63,46 @@ public class VisualisePopulation extends JFrame
 		this.setTitle("Visualise Population");
 		this.setSize(400, 400);
 		this.setVisible(true);
-		this.population = null;
-		this.setDefaultCloseOperation(EXIT_ON_CLOSE);
+		this.snapshot = null;
+		this.setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+	}
+
+	/**
+	 * Follows a running optimisation: the mailbox is polled on the event dispatch thread at most
+	 * {@code maxFramesPerSecond} times a second and the newest snapshot, if any, is drawn. The optimiser is
+	 * never waited for, generations published between two frames are simply skipped.
+	 * 
+	 * @param mailbox The mailbox the optimiser publishes to.
+	 * @param maxFramesPerSecond The highest repaint rate.
+	 */
+	public void watch(final SnapshotMailbox mailbox, int maxFramesPerSecond)
+	{
+		if (liveTimer != null)
+		{
+			liveTimer.stop();
+		} else
+		{
+			// stop polling once the window is gone
+			addWindowListener(new WindowAdapter()
+			{
+				public void windowClosed(WindowEvent e)
+				{
+					liveTimer.stop();
+				}
+			});
+		}
+
+		liveTimer = new Timer(1000 / Math.max(1, maxFramesPerSecond), new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				GenerationSnapshot next = mailbox.take();
+				if (next != null)
+					updateSnapshot(next);
+			}
+		});
+		liveTimer.setCoalesce(true);
+		liveTimer.start();
 	}
 
 	public void setSize(int width, int height)
@@ -66,6 +115,16 @@ public class VisualisePopulation extends JFrame
 	}
 
 	public void updatePopulation(Individual[] pop)
+	{
+		updateSnapshot(new GenerationSnapshot(-1, pop));
+	}
+
+	/**
+	 * Shows the passed snapshot, rescaling the axes unless they are fixed.
+	 * 
+	 * @param snap The snapshot to show.
+	 */
+	public void updateSnapshot(GenerationSnapshot snap)
 	{
 		if (!fixedMinMax)
 		{
@@ -73,47 +132,65 @@ public class VisualisePopulation extends JFrame
 			double min2 = Double.POSITIVE_INFINITY;
 			double max1 = Double.NEGATIVE_INFINITY;
 			double max2 = Double.NEGATIVE_INFINITY;
-			for (Individual individual : pop)
+			for (int i = 0; i < snap.size(); i++)
 			{
-				if (individual.getFitness1() < min1)
-				{
-					min1 = individual.getFitness1();
-				} else if (individual.getFitness1() > max1)
-				{
-					max1 = individual.getFitness1();
-				}
-				if (individual.getFitness2() < min2)
-				{
-					min2 = individual.getFitness2();
-				} else if (individual.getFitness2() > max2)
-				{
-					max2 = individual.getFitness2();
-				}
+				// invalid slots have no fitness
+				if (Double.isNaN(snap.getFitness1(i))
+						|| Double.isNaN(snap.getFitness2(i)))
+					continue;
+				min1 = Math.min(min1, snap.getFitness1(i));
+				max1 = Math.max(max1, snap.getFitness1(i));
+				min2 = Math.min(min2, snap.getFitness2(i));
+				max2 = Math.max(max2, snap.getFitness2(i));
 			}
 
-			// add a bit of padding
-			double pad1 = (max1 - min1) * 0.2;
-			double pad2 = (max2 - min2) * 0.2;
+			// keep the previous axes if there was nothing to scale them to
+			if (min1 <= max1)
+			{
+				// add a bit of padding
+				double pad1 = (max1 - min1) * 0.2;
+				double pad2 = (max2 - min2) * 0.2;
 
-			this.minFitness1 = min1 - pad1;
-			this.minFitness2 = min2 - pad2;
-			this.maxFitness1 = max1 + pad1;
-			this.maxFitness2 = max2 + pad2;
+				this.minFitness1 = min1 - pad1;
+				this.minFitness2 = min2 - pad2;
+				this.maxFitness1 = max1 + pad1;
+				this.maxFitness2 = max2 + pad2;
+			}
 		}
 
-		this.population = pop;
-		// this.invalidate();
-		// this.validate();
+		this.snapshot = snap;
+		if (snap.getGeneration() >= 0)
+			this.setTitle("Visualise Population - generation " + snap.getGeneration());
 		this.repaint();
 	}
 
+	/**
+	 * Double buffered: the plot is drawn off-screen and copied to the window in one go.
+	 */
 	public void paint(Graphics g)
 	{
-		Graphics2D g2 = (Graphics2D) g;
-		g2.setColor(Color.white);
-		Rectangle bounds = this.getBounds();// g2.getClipBounds();
+		Rectangle bounds = this.getBounds();
 		bounds.setLocation(0, 0); // okay, we don't want to include the window's
 									// coords for internal drawing!
+		if (bounds.width <= 0 || bounds.height <= 0)
+			return;
+
+		if (backBuffer == null || backBuffer.getWidth() != bounds.width
+				|| backBuffer.getHeight() != bounds.height)
+		{
+			backBuffer = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+		}
+
+		Graphics2D g2 = backBuffer.createGraphics();
+		draw(g2, bounds);
+		g2.dispose();
+
+		g.drawImage(backBuffer, 0, 0, null);
+	}
+
+	private void draw(Graphics2D g2, Rectangle bounds)
+	{
+		g2.setColor(Color.white);
 		g2.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
 
 		// draw axes
@@ -181,11 +258,16 @@ public class VisualisePopulation extends JFrame
 			curFit += xTicInterval;
 		}
 
-		if (this.population != null)
+		GenerationSnapshot snap = this.snapshot;
+		if (snap != null)
 		{
-			for (Individual i : this.population)
+			for (int i = 0; i < snap.size(); i++)
 			{
-				if (i.rank == 0)
+				if (Double.isNaN(snap.getFitness1(i))
+						|| Double.isNaN(snap.getFitness2(i)))
+					continue;
+
+				if (snap.getRank(i) == 0)
 				{ // optimal
 					g2.setColor(Color.blue);
 				} else
@@ -194,9 +276,9 @@ public class VisualisePopulation extends JFrame
 				}
 
 				// normalise fitnesses
-				double n1 = (i.getFitness1() - minFitness1)
+				double n1 = (snap.getFitness1(i) - minFitness1)
 						/ (maxFitness1 - minFitness1);
-				double n2 = (i.getFitness2() - minFitness2)
+				double n2 = (snap.getFitness2(i) - minFitness2)
 						/ (maxFitness2 - minFitness2);
 
 				// System.out.println("A:" + i.getFitness1() + ":" + n1);
@@ -213,6 +295,8 @@ public class VisualisePopulation extends JFrame
 
 	private double roundDouble(double d, int decimalPlaces)
 	{
+		if (Double.isNaN(d) || Double.isInfinite(d))
+			return d;
 		BigDecimal round = new BigDecimal(d).setScale(decimalPlaces,
 				BigDecimal.ROUND_HALF_UP);
 		Double doubleValue = new Double(round.doubleValue());
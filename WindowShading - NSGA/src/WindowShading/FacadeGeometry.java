@@ -0,0 +1,127 @@
+package WindowShading;
+
+/**
+ * Describes the facade being optimised: a grid of cells, floors by columns, and which sections of the genome
+ * exist for every cell. The genome holds one bit per cell for the windows, followed by one bit per cell for the
+ * overhangs and one per cell for the fins when those sections are optimised.
+ *
+ * Cell {@code i} sits on floor {@code i / columns} counted from the top, in column {@code i % columns}; the
+ * template's {@code BOP_...[i + 1]} markers refer to the same cell.
+ */
+public final class FacadeGeometry
+{
+	/** The single wall of the supplied templates: 8 floors of 15 windows, windows only. */
+	public static final FacadeGeometry DEFAULT = new FacadeGeometry(8, 15, false, false);
+
+	private final int rows;
+	private final int columns;
+	private final boolean overhangs;
+	private final boolean fins;
+
+	/**
+	 * Constructor for a facade description.
+	 *
+	 * @param rows The number of floors.
+	 * @param columns The number of cells per floor.
+	 * @param overhangs {@code true} if the genome has an overhang section.
+	 * @param fins {@code true} if the genome has a fin section.
+	 */
+	public FacadeGeometry(int rows, int columns, boolean overhangs, boolean fins)
+	{
+		if (rows <= 0 || columns <= 0)
+			throw new IllegalArgumentException("a facade needs at least one floor and one column, got " + rows + "x" + columns);
+
+		this.rows = rows;
+		this.columns = columns;
+		this.overhangs = overhangs;
+		this.fins = fins;
+	}
+
+	public int getRows()
+	{
+		return rows;
+	}
+
+	public int getColumns()
+	{
+		return columns;
+	}
+
+	public boolean hasOverhangs()
+	{
+		return overhangs;
+	}
+
+	public boolean hasFins()
+	{
+		return fins;
+	}
+
+	/**
+	 * @return The number of cells (possible windows) on the facade.
+	 */
+	public int getCellCount()
+	{
+		return rows * columns;
+	}
+
+	/**
+	 * @return The number of bits in a genome.
+	 */
+	public int getGenomeLength()
+	{
+		return getCellCount() * (1 + (overhangs ? 1 : 0) + (fins ? 1 : 0));
+	}
+
+	/**
+	 * @return The index of the first overhang bit, -1 if there is no overhang section.
+	 */
+	public int getOverhangOffset()
+	{
+		return overhangs ? getCellCount() : -1;
+	}
+
+	/**
+	 * @return The index of the first fin bit, -1 if there is no fin section.
+	 */
+	public int getFinOffset()
+	{
+		return fins ? getCellCount() * (overhangs ? 2 : 1) : -1;
+	}
+
+	/**
+	 * Counts the windows of a genome.
+	 *
+	 * @param genome The genome.
+	 * @return The number of window bits set.
+	 */
+	public int countWindows(boolean[] genome)
+	{
+		int count = 0;
+		for (int i = 0, n = getCellCount(); i < n; i++)
+			if (genome[i])
+				count++;
+		return count;
+	}
+
+	/**
+	 * Extracts one section of the genome.
+	 *
+	 * @param genome The genome.
+	 * @param offset The section offset, -1 for a section the genome does not have.
+	 * @return One bit per cell; all {@code false} for a missing section.
+	 */
+	public boolean[] section(boolean[] genome, int offset)
+	{
+		boolean[] cells = new boolean[getCellCount()];
+		if (offset >= 0)
+			System.arraycopy(genome, offset, cells, 0, cells.length);
+		return cells;
+	}
+
+	@Override
+	public String toString()
+	{
+		return rows + "x" + columns + (overhangs ? "+overhangs" : "") + (fins ? "+fins" : "");
+	}
+}
@@ -0,0 +1,312 @@
+package WindowShading;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * An EnergyPlus template with its {@code BOP_} markers parsed once. The template is held as alternating literal
+ * text and marker slots, so generating an input file for a solution is a single pass of appends instead of
+ * re-reading and re-splitting the template for every simulation, whatever the number of cells.
+ *
+ * A template can be loaded lean: its output objects are rewritten so EnergyPlus only writes the meters to the
+ * meter file, and the drawings, report variables and tabular reports the optimiser never reads are dropped.
+ */
+public class FacadeTemplate
+{
+	/** Marker kinds. */
+	private static final int WINDOW_WALL = 0;
+	private static final int OVERHANG = 1;
+	private static final int FIN = 2;
+	private static final int FIN_LEFT = 3;
+	private static final int FIN_RIGHT = 4;
+
+	/** The file the template was read from. */
+	private final String path;
+	/** {@code literals[k]} is written before marker {@code k}; the last literal closes the file. */
+	private final String[] literals;
+	/** The kind of every marker. */
+	private final int[] kinds;
+	/** The cell every marker refers to. */
+	private final int[] cells;
+	/** Rough size of a generated file, used to size the output buffer. */
+	private final int sizeHint;
+	/** {@code true} if the output objects were reduced to the meters. */
+	private final boolean lean;
+	/** The names of the meters the template requests, in order. */
+	private final List<String> meters;
+
+	/** Output classes a lean template drops, lower case. */
+	private static final String[] LEAN_DROPPED = {"output:surfaces:drawing", "output:surfaces:list",
+			"output:constructions", "output:variable", "output:variabledictionary", "output:table:summaryreports",
+			"output:table:monthly", "output:table:annual", "output:table:timebins", "outputcontrol:table:style",
+			"output:sqlite", "output:schedules"};
+
+	/**
+	 * Reads and parses a template file, keeping its output objects as they are.
+	 *
+	 * @param path The template file.
+	 * @throws IOException If the template cannot be read.
+	 */
+	public FacadeTemplate(String path) throws IOException
+	{
+		this(path, false);
+	}
+
+	/**
+	 * Reads and parses a template file.
+	 *
+	 * @param path The template file.
+	 * @param lean {@code true} to reduce the output objects to meter file only meters.
+	 * @throws IOException If the template cannot be read.
+	 */
+	public FacadeTemplate(String path, boolean lean) throws IOException
+	{
+		this.path = path;
+		this.lean = lean;
+		List<String> meterList = new ArrayList<>();
+		boolean skipping = false; // inside a dropped object that spans several lines
+
+		List<String> literalList = new ArrayList<>();
+		List<int[]> markerList = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		String newline = System.lineSeparator();
+
+		try (BufferedReader in = new BufferedReader(new FileReader(path)))
+		{
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				String code = code(line);
+				if (skipping)
+				{
+					skipping = code.indexOf(';') < 0;
+					continue;
+				}
+				String type = objectType(code);
+				if (type.startsWith("output:meter"))
+				{
+					String[] fields = code.split("[,;]");
+					if (fields.length > 1)
+						meterList.add(fields[1].trim());
+					if (lean && !type.endsWith("meterfileonly"))
+						line = line.replaceFirst("(?i)" + Pattern.quote(type), rewrittenMeterType(type));
+				}
+				else if (lean && isDropped(type))
+				{
+					skipping = code.indexOf(';') < 0;
+					continue;
+				}
+
+				// line starts with a BOP_ marker?
+				if (line.startsWith("BOP_NorthAxis"))
+				{
+					literal.append(line.replaceFirst("BOP_NorthAxis", "0.0")); // fixed for now
+				}
+				else if (line.contains("BOP_"))
+				{ // line contains indexed BOP_ markers
+					for (String part : line.split("BOP_"))
+					{
+						// split by [ and ] to get the key name, number, and bits after
+						String[] keyParts = part.split("[\\[\\]]");
+
+						if (keyParts.length > 1)
+						{ // ie a key found
+							int kind = kind(keyParts[0]);
+							if (kind >= 0)
+							{
+								literalList.add(literal.toString());
+								literal.setLength(0);
+								markerList.add(new int[]{kind, Integer.parseInt(keyParts[1]) - 1});
+							}
+							// always add last bit
+							literal.append(keyParts[2]);
+						}
+						else
+						{
+							literal.append(keyParts[0]);
+						}
+					}
+				}
+				else
+				{
+					literal.append(line);
+				}
+				literal.append(newline);
+			}
+		}
+		literalList.add(literal.toString());
+
+		this.literals = literalList.toArray(new String[literalList.size()]);
+		this.kinds = new int[markerList.size()];
+		this.cells = new int[markerList.size()];
+		int size = 0;
+		for (int k = 0; k < kinds.length; k++)
+		{
+			kinds[k] = markerList.get(k)[0];
+			cells[k] = markerList.get(k)[1];
+		}
+		for (String s : literals)
+			size += s.length();
+		this.sizeHint = size + 3 * kinds.length;
+		this.meters = Collections.unmodifiableList(meterList);
+	}
+
+	/**
+	 * @return The part of an IDF line before its comment.
+	 */
+	private static String code(String line)
+	{
+		int comment = line.indexOf('!');
+		return comment < 0 ? line : line.substring(0, comment);
+	}
+
+	/**
+	 * @return The lower case class name if the line starts an object, the empty string otherwise.
+	 */
+	private static String objectType(String code)
+	{
+		String trimmed = code.trim();
+		int end = 0;
+		while (end < trimmed.length() && trimmed.charAt(end) != ',' && trimmed.charAt(end) != ';')
+			end++;
+		return end < trimmed.length() ? trimmed.substring(0, end).trim().toLowerCase(Locale.ROOT) : "";
+	}
+
+	private static boolean isDropped(String type)
+	{
+		for (String dropped : LEAN_DROPPED)
+			if (type.equals(dropped))
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return The meter file only counterpart of a meter class.
+	 */
+	private static String rewrittenMeterType(String type)
+	{
+		return type.equals("output:meter:cumulative") ? "Output:Meter:Cumulative:MeterFileOnly"
+				: "Output:Meter:MeterFileOnly";
+	}
+
+	private static int kind(String key)
+	{
+		switch (key)
+		{
+			case "WindowWall" :
+				return WINDOW_WALL;
+			case "Overhang" :
+				return OVERHANG;
+			case "Fin" :
+				return FIN;
+			case "FinLeft" :
+				return FIN_LEFT;
+			case "FinRight" :
+				return FIN_RIGHT;
+			default :
+				return -1;
+		}
+	}
+
+	/**
+	 * @return The file the template was read from.
+	 */
+	public String getPath()
+	{
+		return path;
+	}
+
+	/**
+	 * @return {@code true} if the output objects were reduced to the meters.
+	 */
+	public boolean isLean()
+	{
+		return lean;
+	}
+
+	/**
+	 * @return The names of the meters the template requests, e.g. {@code Electricity:Facility}.
+	 */
+	public List<String> getMeters()
+	{
+		return meters;
+	}
+
+	/**
+	 * @return The highest cell index referred to by a marker plus one.
+	 */
+	public int getCellCount()
+	{
+		int max = 0;
+		for (int c : cells)
+			max = Math.max(max, c + 1);
+		return max;
+	}
+
+	/**
+	 * Fills in the markers for a solution.
+	 *
+	 * @param windows One bit per cell, a window is present.
+	 * @param overhangs One bit per cell, the window has an overhang.
+	 * @param fins One bit per cell, the window has fins.
+	 * @param finsLeftRight Which side the fins go.
+	 * @return The EnergyPlus input file contents.
+	 */
+	public String fill(boolean[] windows, boolean[] overhangs, boolean[] fins, boolean finsLeftRight)
+	{
+		StringBuilder sb = new StringBuilder(sizeHint);
+		for (int k = 0; k < kinds.length; k++)
+		{
+			sb.append(literals[k]);
+			int i = cells[k];
+			switch (kinds[k])
+			{
+				case WINDOW_WALL :
+					sb.append(windows[i] ? "F" : "!");
+					break;
+				case OVERHANG :
+					sb.append(overhangs[i] && windows[i] ? "S" : "!");
+					break;
+				case FIN :
+					sb.append(fins[i] && windows[i] ? "S" : "!");
+					break;
+				case FIN_LEFT :
+					sb.append(!finsLeftRight && fins[i] && windows[i] ? "0.3" : "0.0");
+					break;
+				case FIN_RIGHT :
+					sb.append(finsLeftRight && fins[i] && windows[i] ? "0.3" : "0.0");
+					break;
+			}
+		}
+		sb.append(literals[kinds.length]);
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the EnergyPlus input file for a solution.
+	 *
+	 * @param outputPath The file to write.
+	 * @param windows One bit per cell, a window is present.
+	 * @param overhangs One bit per cell, the window has an overhang.
+	 * @param fins One bit per cell, the window has fins.
+	 * @param finsLeftRight Which side the fins go.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void write(String outputPath, boolean[] windows, boolean[] overhangs, boolean[] fins,
+			boolean finsLeftRight) throws IOException
+	{
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(outputPath)))
+		{
+			out.write(fill(windows, overhangs, fins, finsLeftRight));
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package WindowShading;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import Optimisation.FitnessFunction;
+import Optimisation.Individual;
+import regression.OnlineLinearRegression;
+
+/**
+ * Evaluates solutions with two fidelities of the same problem: every solution is first simulated on the design
+ * days, which is 20-50x cheaper, and only those whose full-year energy could land near the best solutions seen so
+ * far are simulated for the full year.
+ *
+ * The full-year energy of a screened solution is estimated from its design-day energy with a linear fit learnt
+ * from every solution simulated at both fidelities. A solution is promoted when its optimistic estimate (the fit
+ * minus a margin of residual standard deviations) is not dominated by the full-year front; the others get the
+ * estimate, flagged as such. Until the fit has seen enough pairs every solution is promoted.
+ */
+public class MultiFidelityFitnessFunction extends FitnessFunction
+{
+	/** Number of solutions simulated at both fidelities before any is screened out. */
+	private static final int DEFAULT_WARM_UP = 20;
+
+	private final WindowShadingFitnessFunction designDay;
+	private final WindowShadingFitnessFunction fullYear;
+
+	/** Full-year energy as a function of design-day energy. */
+	private final OnlineLinearRegression fidelityFit = new OnlineLinearRegression();
+	/** Non-dominated full-year results, energy to cost; the cost strictly decreases with the energy. */
+	private final TreeMap<Double, Double> front = new TreeMap<>();
+
+	private int warmUp = DEFAULT_WARM_UP;
+	/** Width of the promotion band, in residual standard deviations. */
+	private double margin = 2;
+
+	private int screened;
+	private int promoted;
+
+	/**
+	 * Constructor for the evaluator, using the two supplied templates.
+	 *
+	 * @param geometry The facade the genomes describe.
+	 * @param constrained {@code true} to apply the window aspect ratio constraints.
+	 */
+	public MultiFidelityFitnessFunction(FacadeGeometry geometry, boolean constrained)
+	{
+		this(new WindowShadingFitnessFunction(geometry, constrained, false),
+				new WindowShadingFitnessFunction(geometry, constrained, true));
+	}
+
+	/**
+	 * Constructor for the evaluator.
+	 *
+	 * @param designDay The cheap fidelity every solution goes through.
+	 * @param fullYear The expensive fidelity promoted solutions go through.
+	 */
+	public MultiFidelityFitnessFunction(WindowShadingFitnessFunction designDay, WindowShadingFitnessFunction fullYear)
+	{
+		super(fullYear.getGeometry());
+		this.designDay = designDay;
+		this.fullYear = fullYear;
+	}
+
+	@Override
+	public MOFitness evaluate(Individual i)
+	{
+		return evaluateAsync(i).join();
+	}
+
+	/**
+	 * Chains the full-year simulation onto the design-day one, so neither holds the calling thread.
+	 */
+	@Override
+	public CompletableFuture<MOFitness> evaluateAsync(Individual i)
+	{
+		return designDay.evaluateAsync(i).thenCompose(screen -> {
+			if (screen.overallConstraintViolation > 0 || screen.invalid)
+				return CompletableFuture.completedFuture(screen); // infeasible at any fidelity, or the simulation failed
+
+			double estimate;
+			boolean promote;
+			synchronized (this)
+			{
+				screened++;
+				estimate = fidelityFit.predict(screen.fitness1);
+				promote = fidelityFit.getCount() < warmUp
+						|| !dominatedByFront(estimate - margin * fidelityFit.getResidualStandardDeviation(), screen.fitness2);
+				if (promote)
+					promoted++;
+			}
+
+			if (!promote)
+			{
+				MOFitness mof = new MOFitness();
+				mof.fitness1 = estimate;
+				mof.fitness2 = screen.fitness2;
+				mof.overallConstraintViolation = screen.overallConstraintViolation;
+				mof.estimated = true;
+				return CompletableFuture.completedFuture(mof);
+			}
+
+			return fullYear.evaluateAsync(i).thenApply(full -> {
+				if (full.invalid)
+					return full;
+				synchronized (this)
+				{
+					fidelityFit.add(screen.fitness1, full.fitness1);
+					addToFront(full.fitness1, full.fitness2);
+				}
+				return full;
+			});
+		});
+	}
+
+	/**
+	 * @return {@code true} if a point of the front weakly dominates the passed objectives.
+	 */
+	private boolean dominatedByFront(double energy, double cost)
+	{
+		Map.Entry<Double, Double> left = front.floorEntry(energy);
+		return left != null && left.getValue() <= cost;
+	}
+
+	private void addToFront(double energy, double cost)
+	{
+		if (dominatedByFront(energy, cost))
+			return;
+		// drop the points the new one dominates, they follow it on the energy axis
+		Map.Entry<Double, Double> next;
+		while ((next = front.ceilingEntry(energy)) != null && next.getValue() >= cost)
+			front.remove(next.getKey());
+		front.put(energy, cost);
+	}
+
+	/**
+	 * Mutator method for the warm up length.
+	 *
+	 * @param warmUp The number of solutions simulated at both fidelities before screening starts.
+	 */
+	public void setWarmUp(int warmUp)
+	{
+		this.warmUp = warmUp;
+	}
+
+	/**
+	 * Mutator method for the promotion margin.
+	 *
+	 * @param margin The number of residual standard deviations an estimate may be above the front and still be
+	 *        promoted; larger is safer and more expensive.
+	 */
+	public void setMargin(double margin)
+	{
+		this.margin = margin;
+	}
+
+	/**
+	 * @return The number of feasible solutions simulated on the design days.
+	 */
+	public synchronized int getScreened()
+	{
+		return screened;
+	}
+
+	/**
+	 * @return The number of solutions promoted to the full-year simulation.
+	 */
+	public synchronized int getPromoted()
+	{
+		return promoted;
+	}
+
+	/**
+	 * @return The correlation between the design-day and full-year energies observed so far.
+	 */
+	public synchronized double getFidelityCorrelation()
+	{
+		return fidelityFit.getCorrelation();
+	}
+
+	/**
+	 * @return The number of full-year simulations run (solutions found in memory are not counted).
+	 */
+	@Override
+	public int getEvals()
+	{
+		return fullYear.getEvals();
+	}
+
+	/**
+	 * @return The number of design-day simulations run.
+	 */
+	public int getScreeningEvals()
+	{
+		return designDay.getEvals();
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return "multi-fidelity: " + promoted + " of " + screened + " promoted, r = " + fidelityFit.getCorrelation()
+				+ ", full year = " + fidelityFit.getIntercept() + " + " + fidelityFit.getSlope() + " * design day";
+	}
+}
@@ -0,0 +1,124 @@
+package WindowShading;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * waits for external processes on behalf of their callers: a single daemon
+ * thread polls every watched process and completes its future with the exit
+ * code, so any number of simulations in flight need no thread blocked in
+ * waitFor; processes running past their deadline are killed and their future
+ * fails with a TIMEOUT
+ */
+public final class ProcessReaper
+{
+	/** how often the running processes are checked */
+	private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final class Watch
+	{
+		final Process process;
+		/** System.nanoTime() at which the process is killed, 0 for never */
+		final long deadline;
+		final long timeoutMillis;
+		final CompletableFuture<Integer> exit = new CompletableFuture<>();
+
+		Watch(Process process, long timeoutMillis)
+		{
+			this.process = process;
+			this.timeoutMillis = timeoutMillis;
+			this.deadline = timeoutMillis > 0
+					? System.nanoTime()
+							+ TimeUnit.MILLISECONDS.toNanos(timeoutMillis)
+					: 0;
+		}
+	}
+
+	/** processes handed over since the reaper last looked */
+	private static final ConcurrentLinkedQueue<Watch> ADDED = new ConcurrentLinkedQueue<>();
+
+	private static Thread reaper;
+
+	private ProcessReaper()
+	{
+	}
+
+	/**
+	 * watch a started process
+	 *
+	 * @param timeoutMillis the process is killed after this long, 0 for no
+	 *            limit
+	 * @return completed with the exit code once the process ends; failed
+	 *         with a TIMEOUT SimulationException if it was killed.
+	 *         Cancelling the future kills the process
+	 */
+	public static CompletableFuture<Integer> watch(Process process,
+			long timeoutMillis)
+	{
+		Watch w = new Watch(process, timeoutMillis);
+		ADDED.add(w);
+		LockSupport.unpark(start());
+		return w.exit;
+	}
+
+	private static synchronized Thread start()
+	{
+		if (reaper == null)
+		{
+			reaper = new Thread(ProcessReaper::reap, "energyplus-reaper");
+			reaper.setDaemon(true);
+			reaper.start();
+		}
+		return reaper;
+	}
+
+	private static void reap()
+	{
+		List<Watch> running = new ArrayList<>();
+		while (true)
+		{
+			Watch added;
+			while ((added = ADDED.poll()) != null)
+			{
+				running.add(added);
+			}
+
+			long now = System.nanoTime();
+			for (Iterator<Watch> it = running.iterator(); it.hasNext();)
+			{
+				Watch w = it.next();
+				if (!w.process.isAlive())
+				{
+					w.exit.complete(w.process.exitValue());
+					it.remove();
+				} else if (w.exit.isDone())
+				{
+					// cancelled by the caller
+					w.process.destroyForcibly();
+					it.remove();
+				} else if (w.deadline != 0 && now - w.deadline >= 0)
+				{
+					w.process.destroyForcibly();
+					w.exit.completeExceptionally(new SimulationException(
+							SimulationFailure.TIMEOUT, "killed after "
+									+ w.timeoutMillis + " ms"));
+					it.remove();
+				}
+			}
+
+			// nothing to watch: sleep until watch() wakes us
+			if (running.isEmpty() && ADDED.isEmpty())
+			{
+				LockSupport.park();
+			} else
+			{
+				LockSupport.parkNanos(POLL_NANOS);
+			}
+		}
+	}
+}
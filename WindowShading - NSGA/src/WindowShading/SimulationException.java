@@ -0,0 +1,30 @@
+package WindowShading;
+
+/**
+ * thrown when an EnergyPlus evaluation fails; carries the kind of failure so
+ * the caller can decide whether to retry
+ */
+public class SimulationException extends Exception
+{
+	private static final long serialVersionUID = 1L;
+
+	private final SimulationFailure failure;
+
+	public SimulationException(SimulationFailure failure, String message)
+	{
+		super(message);
+		this.failure = failure;
+	}
+
+	public SimulationException(SimulationFailure failure, String message,
+			Throwable cause)
+	{
+		super(message, cause);
+		this.failure = failure;
+	}
+
+	public SimulationFailure getFailure()
+	{
+		return failure;
+	}
+}
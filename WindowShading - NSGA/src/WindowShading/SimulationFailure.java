@@ -0,0 +1,31 @@
+package WindowShading;
+
+/**
+ * the ways an EnergyPlus evaluation can fail; transient failures depend on
+ * the state of the machine and are worth retrying, the others fail the same
+ * way every time for the same input file
+ */
+public enum SimulationFailure
+{
+	/** the process could not be started */
+	LAUNCH(true),
+	/** the process ran for longer than the timeout and was killed */
+	TIMEOUT(true),
+	/** the process finished with a non-zero exit code */
+	EXIT_CODE(false),
+	/** the output file is missing or could not be read */
+	PARSE(false);
+
+	private final boolean transientFailure;
+
+	SimulationFailure(boolean transientFailure)
+	{
+		this.transientFailure = transientFailure;
+	}
+
+	/** @return true if the same simulation may succeed when run again */
+	public boolean isTransient()
+	{
+		return transientFailure;
+	}
+}
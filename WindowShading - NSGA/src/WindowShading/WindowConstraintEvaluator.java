@@ -3,10 +3,18 @@ import bop.models.window.cellular.CellularWindow;
 
 public class WindowConstraintEvaluator
 {
+	/** the facade the wall vectors describe */
+	private final FacadeGeometry geometry;
 
 	public WindowConstraintEvaluator()
+	{
+		this(FacadeGeometry.DEFAULT);
+	}
+
+	public WindowConstraintEvaluator(FacadeGeometry geometry)
 	{
 		super();
+		this.geometry = geometry;
 	}
 
 	/**
@@ -27,7 +35,7 @@ public class WindowConstraintEvaluator
 
 		double ret = 0.0;
 		// Wall width
-		int width = 15;
+		int width = geometry.getColumns();
 		int height = 0;
 		// String[] names = input.getNonSecificDataNames();
 		// String[] values = input.getNonSecificDataValues();
@@ -45,7 +53,7 @@ public class WindowConstraintEvaluator
 		int iStrt = Integer.parseInt(f_type[0]);
 		int iEnd = Integer.parseInt(f_type[1]);
 		// Wall height
-		height = (iEnd - iStrt + 1) / width;
+		height = (iEnd - iStrt) / width;
 
 		// Translate wall vector to matrix - invert for difference in origin
 		int[][] wall = new int[height][width];
@@ -1,6 +1,8 @@
 package WindowShading;
 
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import Optimisation.FitnessFunction;
 import Optimisation.Individual;
@@ -12,7 +14,7 @@ import Optimisation.Individual;
 public class WindowShadingFitnessFunction extends FitnessFunction
 {
 	private WindowShadingProblem wsp;
-	private int evals;
+	private final AtomicInteger evals = new AtomicInteger();
 	private boolean constraintShortcut;
 	private boolean constrained;
 
@@ -22,7 +24,7 @@ public class WindowShadingFitnessFunction extends FitnessFunction
 		WindowShadingFitnessFunction ff = new WindowShadingFitnessFunction(
 				false, true);
 
-		boolean[] noWindows = new boolean[120];
+		boolean[] noWindows = new boolean[ff.getProblemSize()];
 		boolean[] allWindows = new boolean[ff.getProblemSize()];
 		boolean[] rndWindows = new boolean[ff.getProblemSize()];
 		
@@ -53,8 +55,14 @@ public class WindowShadingFitnessFunction extends FitnessFunction
 
 	public WindowShadingFitnessFunction(boolean constrained, boolean fullYear)
 	{
-		super(WindowShadingProblem.WINDOW_NUMBER * 2); // *2 to allow for
-														// overhangs
+		this(FacadeGeometry.DEFAULT, constrained, fullYear);
+	}
+
+	public WindowShadingFitnessFunction(FacadeGeometry geometry,
+			boolean constrained, boolean fullYear)
+	{
+		super(geometry); // the geometry says whether overhangs / fins are
+							// part of the genome
 
 		// change the path below to match where the templates are stored
 		// the first line is the full year sim - a lot slower (in the order of
@@ -79,18 +87,17 @@ public class WindowShadingFitnessFunction extends FitnessFunction
 				: "/home/sbr/workspace/WindowShadingTest";
 		if (fullYear)
 		{
-			wsp = new WindowShadingProblem(onWindows, workingDirectory,
+			wsp = new WindowShadingProblem(geometry, onWindows, workingDirectory,
 					"./WindowShadingFileWithOverhangsAndFins-fullyear03Overhang.tpt",
 					true, false, 0);
 		} else
 		{
-			wsp = new WindowShadingProblem(onWindows, workingDirectory,
+			wsp = new WindowShadingProblem(geometry, onWindows, workingDirectory,
 					"./WindowShadingFileWithOverhangsAndFins03Overhang.tpt",
 					true, true, 10000);
 		}
 		this.constrained = constrained;
 		wsp.setShowProgress(false); // for debug
-		this.evals = 0;
 		this.constraintShortcut = true; // set to false to always calc
 										// objectives even in infeasible
 										// solutions
@@ -98,6 +105,16 @@ public class WindowShadingFitnessFunction extends FitnessFunction
 
 	@Override
 	public MOFitness evaluate(Individual i)
+	{
+		return evaluateAsync(i).join();
+	}
+
+	/**
+	 * the constraints are checked straight away, the simulation runs without
+	 * holding the calling thread
+	 */
+	@Override
+	public CompletableFuture<MOFitness> evaluateAsync(Individual i)
 	{
 		MOFitness mof = new MOFitness();
 
@@ -118,25 +135,27 @@ public class WindowShadingFitnessFunction extends FitnessFunction
 			mof.overallConstraintViolation = 0;
 		}
 
-		if (!this.constraintShortcut || (mof.overallConstraintViolation == 0))
+		if (this.constraintShortcut && (mof.overallConstraintViolation != 0))
 		{
-			WindowShadingProblem.WindowShadingFitness f = wsp
-					.evaluateObjectives(i.getAlleles());
+			return CompletableFuture.completedFuture(mof);
+		}
+
+		return wsp.evaluateObjectivesAsync(i.getAlleles()).thenApply(f -> {
 			if (!f.retrievedFromMemory)
 			{
-				this.evals++;
+				this.evals.incrementAndGet();
 			}
 
 			mof.fitness1 = f.energy;
 			mof.fitness2 = f.cost;
-		}
-
-		return mof;
+			mof.invalid = f.failure != null;
+			return mof;
+		});
 	}
 
 	@Override
 	public int getEvals()
 	{
-		return this.evals;
+		return this.evals.get();
 	}
 }
@@ -4,16 +4,26 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintStream;
+import java.lang.ProcessBuilder.Redirect;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import Optimisation.Individual;
+import metrics.Metrics;
 
 public class WindowShadingProblem
 {
-	/** 120 windows in facade, unlikely to change */
-	protected static final int WINDOW_NUMBER = 120;
+	/** the facade: cells, floors and which genome sections exist */
+	protected final FacadeGeometry geometry;
 
 	/** default path to E+ run script */
 	protected String energyPlusPath;
@@ -35,6 +45,16 @@ public class WindowShadingProblem
 											// to EP output files - depends on
 											// OS!
 	private static volatile String WEATHERFILE_NAME = "USA_IL_Chicago-OHare.Intl.AP.725300_TMY3";
+	/** EnergyPlus console output (stdout and stderr) of a simulation */
+	private static final String LOGFILE_NAME = "energyplus.log";
+	/** meter file read in lean mode - depends on OS too */
+	private static String METERFILE_NAME;
+	/**
+	 * lean mode: the template only requests meter file output and EnergyPlus
+	 * skips the ReadVarsESO post-processing; off by default so the full
+	 * outputs are there to audit
+	 */
+	private static volatile boolean leanOutput = false;
 	private static final String DIR_SEPARATOR = File.separator;
 
 	/** used to name the temp dirs and keep track of evaluations */
@@ -57,21 +77,53 @@ public class WindowShadingProblem
 
 	private boolean showProgress;
 
-	protected static final boolean[] ALL_FALSE = new boolean[WINDOW_NUMBER]; // used
-																				// to
-																				// switch
-																				// off
-																				// all
-																				// fins
-	static
-	{
-		java.util.Arrays.fill(ALL_FALSE, false);
-	}
+	/** the parsed template, replaced if templatePath changes */
+	private volatile FacadeTemplate template;
+
+	// failure handling
+	/** simulations running longer than this are killed, 0 for no limit */
+	private long timeoutSeconds = 600;
+	/** attempts per evaluation for transient failures */
+	private int maxAttempts = 3;
+	/** wait before the first retry, doubled for every further one */
+	private long retryBackoffMillis = 1000;
+	/**
+	 * solutions whose evaluation failed quarantineThreshold times; they are
+	 * never simulated again
+	 */
+	private final ConcurrentHashMap<BitSet, SimulationFailure> quarantine = new ConcurrentHashMap<>();
+	/** failed evaluations of the solutions not quarantined (yet) */
+	private final ConcurrentHashMap<BitSet, Integer> failures = new ConcurrentHashMap<>();
+	/** failed evaluations after which a solution is quarantined */
+	private int quarantineThreshold = 2;
+
+	/**
+	 * parses and tidies up finished simulations and launches the retries; a
+	 * handful of threads whatever the number of simulations in flight, the
+	 * waiting itself is done by the ProcessReaper
+	 */
+	private static final ScheduledExecutorService IO = Executors
+			.newScheduledThreadPool(
+					Math.max(2, Runtime.getRuntime().availableProcessors()),
+					r -> {
+						Thread t = new Thread(r, "energyplus-io");
+						t.setDaemon(true);
+						return t;
+					});
 
 	public WindowShadingProblem(boolean onWindows, String workingDir,
 			String templatePath, boolean constrained, boolean useMemory,
 			int memorySize)
 	{
+		this(FacadeGeometry.DEFAULT, onWindows, workingDir, templatePath,
+				constrained, useMemory, memorySize);
+	}
+
+	public WindowShadingProblem(FacadeGeometry geometry, boolean onWindows,
+			String workingDir, String templatePath, boolean constrained,
+			boolean useMemory, int memorySize)
+	{
+		this.geometry = geometry;
 		this.onWindows = onWindows;
 		setDefaults();
 		this.useMemory = useMemory;
@@ -84,6 +136,7 @@ public class WindowShadingProblem
 		this.workingDir = workingDir;
 		this.templatePath = templatePath;
 		OUTPUTFILE_NAME = onWindows ? "ShadingMeter.csv" : "Shadingmtr.csv";
+		METERFILE_NAME = onWindows ? "Shading.mtr" : "Shadingout.mtr";
 	}
 
 	private void setDefaults()
@@ -121,17 +174,85 @@ public class WindowShadingProblem
 		this.energyPlusPath = energyPlusPath;
 	}
 
+	/** set the time limit of a simulation, 0 for none */
+	public void setTimeoutSeconds(long timeoutSeconds)
+	{
+		this.timeoutSeconds = timeoutSeconds;
+	}
+
+	/**
+	 * set how often an evaluation is attempted when it fails for a transient
+	 * reason (launch error or timeout), and how long to wait before the first
+	 * retry; the wait doubles for every further retry
+	 */
+	public void setRetryPolicy(int maxAttempts, long retryBackoffMillis)
+	{
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.retryBackoffMillis = retryBackoffMillis;
+	}
+
+	/**
+	 * set how many evaluations of a solution have to fail before it is
+	 * quarantined; at least 2, so that a single flaky run doesn't rule a
+	 * design out
+	 */
+	public void setQuarantineThreshold(int quarantineThreshold)
+	{
+		this.quarantineThreshold = Math.max(2, quarantineThreshold);
+	}
+
+	/** @return the number of solutions that will not be simulated again */
+	public int getQuarantineSize()
+	{
+		return quarantine.size();
+	}
+
 	public static void setWeatherFileName(String weatherFileName)
 	{
 		WEATHERFILE_NAME = weatherFileName;
 	}
 
+	/**
+	 * switch between lean simulations (meters only, no post-processing) and
+	 * the full outputs of the template; RunEPlus.bat on Windows always
+	 * post-processes, so there lean only trims the outputs
+	 */
+	public static void setLeanOutput(boolean lean)
+	{
+		leanOutput = lean;
+	}
+
+	public static boolean isLeanOutput()
+	{
+		return leanOutput;
+	}
+
+	public FacadeGeometry getGeometry()
+	{
+		return geometry;
+	}
+
 	/**
 	 * evaluate the objectives for a solution; the solution is specified as a
-	 * 240 bit array
+	 * bit array laid out as described by the geometry. Blocks until the
+	 * simulation is done, see evaluateObjectivesAsync
 	 */
 	public WindowShadingProblem.WindowShadingFitness evaluateObjectives(
 			boolean[] solution)
+	{
+		return evaluateObjectivesAsync(solution).join();
+	}
+
+	/**
+	 * start evaluating the objectives for a solution; the input file is
+	 * written and EnergyPlus launched on the calling thread, the rest happens
+	 * when the simulation ends, so no thread waits for it
+	 *
+	 * @return completed with the fitness; failed simulations complete it
+	 *         normally with NaN objectives and the failure set
+	 */
+	public CompletableFuture<WindowShadingFitness> evaluateObjectivesAsync(
+			boolean[] solution)
 	{
 		WindowShadingFitness rval = new WindowShadingFitness();
 
@@ -142,30 +263,38 @@ public class WindowShadingProblem
 			int memPos = checkMemory(solution);
 			if (memPos > -1)
 			{
+				Metrics.CACHE_HITS.incrementAndGet();
 				rval.cost = memoryCost[memPos];
 				rval.energy = memoryEnergy[memPos];
 				rval.retrievedFromMemory = true;
 				rval.solutionNumber = memoryIDs[memPos];
 
-				return rval;
+				return CompletableFuture.completedFuture(rval);
 			}
+			Metrics.CACHE_MISSES.incrementAndGet();
 		}
 
-		// make a bitstring for the windows
-		boolean[] bitstringWindows = new boolean[WINDOW_NUMBER];
-		for (int i = 0; i < bitstringWindows.length; i++)
-		{
-			bitstringWindows[i] = solution[i];
-		}
-		// make a bitstring for the overhangs
-		boolean[] bitstringOverhangs = new boolean[WINDOW_NUMBER];
-		for (int i = 0; i < bitstringOverhangs.length; i++)
-		{
-//			bitstringOverhangs[i] = solution[i + WINDOW_NUMBER];
-			bitstringOverhangs[i] = false;
+		// solutions that failed repeatedly will fail again, don't spend a
+		// simulation finding out
+		BitSet key = toBitSet(solution);
+		SimulationFailure known = quarantine.get(key);
+		if (known != null)
+		{
+			Metrics.SIMULATIONS_QUARANTINED.incrementAndGet();
+			rval.energy = Double.NaN;
+			rval.cost = Double.NaN;
+			rval.failure = known;
+			rval.quarantined = true;
+			return CompletableFuture.completedFuture(rval);
 		}
 
-		boolean[] bitstringFins = ALL_FALSE;
+		// make bitstrings for the windows, overhangs and fins; sections the
+		// geometry doesn't optimise are switched off
+		boolean[] bitstringWindows = geometry.section(solution, 0);
+		boolean[] bitstringOverhangs = geometry.section(solution,
+				geometry.getOverhangOffset());
+		boolean[] bitstringFins = geometry.section(solution,
+				geometry.getFinOffset());
 		boolean bitstringFinsLeftRight = false;
 
 		// what run are we on?
@@ -189,21 +318,66 @@ public class WindowShadingProblem
 
 		// the difficult bit is objective 1, we need to generate an EP input
 		// file from the template, run EP and parse the output...
-		double energy = energy(bitstringWindows, bitstringOverhangs,
-				bitstringFins, bitstringFinsLeftRight, localEvalNo);
-		double cost = cost(bitstringWindows, bitstringOverhangs, bitstringFins);
+		return energyAsync(bitstringWindows, bitstringOverhangs, bitstringFins,
+				bitstringFinsLeftRight, localEvalNo).handle((energy, e) -> {
+					if (e != null)
+					{
+						SimulationException failure = asSimulationException(e);
+						if (failure == null)
+						{
+							throw e instanceof CompletionException
+									? (CompletionException) e
+									: new CompletionException(e);
+						}
 
-		rval.energy = energy;
-		rval.cost = cost;
+						// no sentinel energy, the solution is marked invalid
+						// instead; it is only ruled out once it kept failing
+						int failed = failures.merge(key, 1, Integer::sum);
+						boolean quarantined = failed >= quarantineThreshold;
+						if (quarantined)
+						{
+							quarantine.put(key, failure.getFailure());
+							failures.remove(key);
+						}
+						System.err.println("evaluation " + localEvalNo
+								+ " failed (" + failure.getFailure() + "), "
+								+ failed + " of " + quarantineThreshold
+								+ " failures"
+								+ (quarantined ? ", quarantined" : "") + ": "
+								+ failure.getMessage());
+						rval.energy = Double.NaN;
+						rval.cost = Double.NaN;
+						rval.failure = failure.getFailure();
+						return rval;
+					}
 
-		// add to memory
-		if (useMemory)
+					failures.remove(key);
+					double cost = cost(bitstringWindows, bitstringOverhangs,
+							bitstringFins);
+
+					rval.energy = energy;
+					rval.cost = cost;
+
+					// add to memory
+					if (useMemory)
+					{
+						addToMemory(solution, energy, cost, localEvalNo);
+					}
+
+					// we're done!
+					return rval;
+				});
+	}
+
+	/** @return the simulation failure behind an exception, null if none */
+	private static SimulationException asSimulationException(Throwable e)
+	{
+		while (e instanceof CompletionException && e.getCause() != null)
 		{
-			addToMemory(solution, energy, cost, localEvalNo);
+			e = e.getCause();
 		}
-
-		// we're done!
-		return rval;
+		return e instanceof SimulationException ? (SimulationException) e
+				: null;
 	}
 
 	/**
@@ -220,13 +394,14 @@ public class WindowShadingProblem
 			return new double[]{0, 0};
 		}
 
-		WindowConstraintEvaluator cons = new WindowConstraintEvaluator();
+		WindowConstraintEvaluator cons = new WindowConstraintEvaluator(geometry);
+		String wall = "0," + geometry.getCellCount();
 		try
 		{
 			double constr1 = cons.evaluateConstraintFunction(bitstringWindows,
-					"0,120,aspectRatio.MIN,-1.0", 1.5);
+					wall + ",aspectRatio.MIN,-1.0", 1.5);
 			double constr2 = cons.evaluateConstraintFunction(bitstringWindows,
-					"0,120,aspectRatio.MAX,1.0", 1.75);
+					wall + ",aspectRatio.MAX,1.0", 1.75);
 			return new double[]{Math.max(0, constr1), Math.max(0, constr2)}; // flatten
 																				// the
 																				// values,
@@ -257,14 +432,15 @@ public class WindowShadingProblem
 		int numberOfOverhangs = 0;
 		int numberOfFins = 0;
 		// only count overhangs / fins if window is present
-		for (int i = 0; i < WINDOW_NUMBER; i++)
+		int cells = geometry.getCellCount();
+		for (int i = 0; i < cells; i++)
 		{
 			numberOfWindows += windows[i] ? 1 : 0;
 			numberOfOverhangs += overhangs[i] && windows[i] ? 1 : 0;
 			numberOfFins += fins[i] && windows[i] ? 1 : 0;
 		}
 
-		double windowCost = 112 * (120 - numberOfWindows)
+		double windowCost = 112 * (cells - numberOfWindows)
 				+ 350 * numberOfWindows;
 		double overhangCost = 128 * numberOfOverhangs;
 		double finCost = 128 * numberOfFins;
@@ -274,7 +450,65 @@ public class WindowShadingProblem
 		return totalCost;
 	}
 
-	protected double energy(boolean[] bitstringWindows,
+	/**
+	 * simulate a solution, retrying transient failures with exponential
+	 * backoff; the retries are scheduled, nothing sleeps in between
+	 *
+	 * @return completed with the energy, or failed with the last
+	 *         SimulationException if no attempt succeeded
+	 */
+	protected CompletableFuture<Double> energyAsync(boolean[] bitstringWindows,
+			boolean[] bitstringOverhangs, boolean[] bitstringFins,
+			boolean bitstringFinsLeftRight, int localEvalNo)
+	{
+		CompletableFuture<Double> result = new CompletableFuture<>();
+		attempt(bitstringWindows, bitstringOverhangs, bitstringFins,
+				bitstringFinsLeftRight, localEvalNo, 0, result);
+		return result;
+	}
+
+	private void attempt(boolean[] bitstringWindows,
+			boolean[] bitstringOverhangs, boolean[] bitstringFins,
+			boolean bitstringFinsLeftRight, int localEvalNo, int attempt,
+			CompletableFuture<Double> result)
+	{
+		simulateAsync(bitstringWindows, bitstringOverhangs, bitstringFins,
+				bitstringFinsLeftRight, localEvalNo).whenComplete((energy, e) -> {
+					if (e == null)
+					{
+						result.complete(energy);
+						return;
+					}
+
+					SimulationException failure = asSimulationException(e);
+					if (failure == null)
+					{
+						result.completeExceptionally(e);
+						return;
+					}
+					Metrics.SIMULATION_FAILURES.incrementAndGet();
+					if (!failure.getFailure().isTransient()
+							|| attempt + 1 >= maxAttempts)
+					{
+						result.completeExceptionally(failure);
+						return;
+					}
+
+					Metrics.SIMULATION_RETRIES.incrementAndGet();
+					IO.schedule(() -> attempt(bitstringWindows,
+							bitstringOverhangs, bitstringFins,
+							bitstringFinsLeftRight, localEvalNo, attempt + 1,
+							result), retryBackoffMillis << attempt,
+							TimeUnit.MILLISECONDS);
+				});
+	}
+
+	/**
+	 * one attempt at simulating a solution: write the input file and launch
+	 * EnergyPlus here, parse and tidy up on the IO pool once the reaper has
+	 * seen the process end
+	 */
+	private CompletableFuture<Double> simulateAsync(boolean[] bitstringWindows,
 			boolean[] bitstringOverhangs, boolean[] bitstringFins,
 			boolean bitstringFinsLeftRight, int localEvalNo)
 	{
@@ -284,11 +518,12 @@ public class WindowShadingProblem
 		new File(outputPath).mkdir();
 
 		// make EP file from template
+		boolean lean = leanOutput;
 		String templateFilename = templatePath;
 		String epInputFilename = outputPath + DIR_SEPARATOR + INPUTFILE_NAME;
-		makeFileFromTemplate(templateFilename, epInputFilename,
-				bitstringWindows, bitstringOverhangs, bitstringFins,
-				bitstringFinsLeftRight);
+		FacadeTemplate t = makeFileFromTemplate(templateFilename,
+				epInputFilename, bitstringWindows, bitstringOverhangs,
+				bitstringFins, bitstringFinsLeftRight, lean);
 
 		// now run EPlus
 		String[] cmd;
@@ -306,72 +541,137 @@ public class WindowShadingProblem
 		{
 			String weatherfile = !WEATHERFILE_NAME.toLowerCase().endsWith(
 					".epw") ? WEATHERFILE_NAME + ".epw" : WEATHERFILE_NAME;
-			cmd = new String[]{energyPlusPath, "-r", "-p",
-					INPUTFILE_NAME_NOEXTENSION, "-w",
-					".." + DIR_SEPARATOR + weatherfile,
-					"." + DIR_SEPARATOR + "Shading.idf"};
+			// -r runs ReadVarsESO to make the csv, lean mode reads the .mtr
+			// instead
+			cmd = lean
+					? new String[]{energyPlusPath, "-p",
+							INPUTFILE_NAME_NOEXTENSION, "-w",
+							".." + DIR_SEPARATOR + weatherfile,
+							"." + DIR_SEPARATOR + "Shading.idf"}
+					: new String[]{energyPlusPath, "-r", "-p",
+							INPUTFILE_NAME_NOEXTENSION, "-w",
+							".." + DIR_SEPARATOR + weatherfile,
+							"." + DIR_SEPARATOR + "Shading.idf"};
 		}
 
+		// the console output goes to a file in the run's directory (or ours,
+		// to watch the progress), never through a pipe nobody may be reading
+		File log = new File(outputPath, LOGFILE_NAME);
+		CompletableFuture<Integer> exit;
+		long simulationStart;
 		try
 		{
-			ProcessBuilder pb = new ProcessBuilder(cmd);
-			pb.directory(new File(outputPath));
-			Process p = pb.start();
-			BufferedReader r = new BufferedReader(
-					new InputStreamReader(p.getInputStream()));
-			// @SuppressWarnings("unused")
-			String line;
-			while (((line = r.readLine()) != null))
+			if (t == null)
 			{
-				if (showProgress)
-					System.out.println(line);
+				throw new SimulationException(SimulationFailure.LAUNCH,
+						"could not write " + epInputFilename);
 			}
+
+			ProcessBuilder pb = new ProcessBuilder(cmd);
+			pb.directory(new File(outputPath));
+			pb.redirectErrorStream(true);
+			pb.redirectOutput(showProgress ? Redirect.INHERIT
+					: Redirect.to(log));
+			long launchStart = System.nanoTime();
+			Process p;
 			try
 			{
-				p.waitFor();
+				p = pb.start();
+				p.getOutputStream().close();
 			}
-			catch (InterruptedException e)
+			catch (IOException e)
 			{
+				throw new SimulationException(SimulationFailure.LAUNCH,
+						"problem executing EP, cmd: " + String.join(" ", cmd),
+						e);
 			}
-			// System.out.println("evald 1");
+			simulationStart = System.nanoTime();
+			Metrics.ENERGYPLUS_LAUNCH.record(simulationStart - launchStart);
+
+			exit = ProcessReaper.watch(p,
+					TimeUnit.SECONDS.toMillis(timeoutSeconds));
 		}
-		catch (IOException e)
+		catch (SimulationException e)
 		{
-			System.err.println("Problem executing EP. Cmd: ");
-			for (String string : cmd)
-			{
-				System.err.print(string);
-			}
-			System.err.println();
-			e.printStackTrace();
+			tidy(outputPath);
+			CompletableFuture<Double> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
 		}
 
-		// now parse output for objective
-		double energy = getEnergyFromOutputFile(
-				outputPath + DIR_SEPARATOR + OUTPUTFILE_NAME);
+		return exit.thenApplyAsync(exitCode -> {
+			Metrics.ENERGYPLUS_SIMULATION
+					.record(System.nanoTime() - simulationStart);
+			try
+			{
+				if (exitCode != 0)
+				{
+					String last = lastLine(log);
+					throw new SimulationException(SimulationFailure.EXIT_CODE,
+							"EnergyPlus exited with " + exitCode
+									+ (last != null ? ": " + last : ""));
+				}
+
+				// now parse output for objective
+				long parseStart = System.nanoTime();
+				double energy = lean
+						? getEnergyFromMeterFile(
+								outputPath + DIR_SEPARATOR + METERFILE_NAME,
+								t.getMeters())
+						: getEnergyFromOutputFile(
+								outputPath + DIR_SEPARATOR + OUTPUTFILE_NAME);
+				Metrics.ENERGYPLUS_PARSE.record(System.nanoTime() - parseStart);
+				return energy;
+			}
+			catch (SimulationException e)
+			{
+				throw new CompletionException(e);
+			}
+		}, IO).whenCompleteAsync((energy, e) -> tidy(outputPath), IO);
+	}
 
-		// finally, tidy up
+	/** finally, tidy up */
+	private void tidy(String outputPath)
+	{
+		Metrics.ENERGYPLUS_OUTPUT_BYTES
+				.addAndGet(directorySize(new File(outputPath)));
 		tidyOutputPath(outputPath);
+	}
 
-		return energy;
+	/** @return the last non-empty line of the console log, null if none */
+	private static String lastLine(File log)
+	{
+		String last = null;
+		try (BufferedReader in = new BufferedReader(new FileReader(log)))
+		{
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				if (!line.trim().isEmpty())
+					last = line.trim();
+			}
+		}
+		catch (IOException e)
+		{
+			// no log, e.g. the output was shown instead
+		}
+		return last;
 	}
 
 	private double getEnergyFromOutputFile(String filename)
+			throws SimulationException
 	{
-		double rval = Double.MAX_VALUE; // make it high energy so if there's a
-										// failure the solution is just
-										// discarded
-		BufferedReader in;
-		try
+		try (BufferedReader in = new BufferedReader(new FileReader(filename)))
 		{
-			// open template file
-//			System.out.println(filename);
-			in = new BufferedReader(new FileReader(filename));
-
 			// skip first line
 			in.readLine();
 
 			String line = in.readLine(); // get line 2 (design day 1)
+			if (line == null)
+			{
+				throw new SimulationException(SimulationFailure.PARSE,
+						"no results in " + filename);
+			}
 			String[] vars = line.split(",");
 
 			// add columns 2,3,4 and divide by 3.6E6
@@ -383,162 +683,146 @@ public class WindowShadingProblem
 			double b2 = 0;
 			double c2 = 0;
 
-			try
+			line = in.readLine(); // get line 3 (design day 2)
+			if (line != null)
+			{ // line is empty if doing full year run
+				vars = line.split(",");
+
+				// add columns 2,3,4 and divide by 3.6E6
+				a2 = Double.parseDouble(vars[1]);
+				b2 = Double.parseDouble(vars[2]);
+				c2 = Double.parseDouble(vars[3]);
+			}
+
+			return (a + b + c + a2 + b2 + c2) / 3.6E6;
+		}
+		catch (IOException e)
+		{
+			throw new SimulationException(SimulationFailure.PARSE,
+					"errors when reading output file..." + e.toString(), e);
+		}
+		catch (NumberFormatException | ArrayIndexOutOfBoundsException e)
+		{
+			throw new SimulationException(SimulationFailure.PARSE,
+					"error parsing output file " + filename, e);
+		}
+	}
+
+	/**
+	 * read the meter file written in lean mode: the data dictionary gives the
+	 * report codes of the meters, the data lines after it give their values;
+	 * all values of the meters (both design days, or the run period) are
+	 * summed and converted from J to kWh as for the csv
+	 */
+	private double getEnergyFromMeterFile(String filename,
+			List<String> meters) throws SimulationException
+	{
+		try (BufferedReader in = new BufferedReader(new FileReader(filename)))
+		{
+			Set<String> codes = new HashSet<>();
+			String line = in.readLine(); // program version
+			while ((line = in.readLine()) != null
+					&& !line.startsWith("End of Data Dictionary"))
 			{
-				line = in.readLine(); // get line 3 (design day 2)
-				if (line != null)
-				{ // line is empty if doing full year run
-					vars = line.split(",");
-
-					// add columns 2,3,4 and divide by 3.6E6
-					a2 = Double.parseDouble(vars[1]);
-					b2 = Double.parseDouble(vars[2]);
-					c2 = Double.parseDouble(vars[3]);
+				// e.g. 13,11,Electricity:Facility [J] !RunPeriod [...]
+				String[] vars = line.split(",", 3);
+				if (vars.length == 3)
+				{
+					String name = vars[2];
+					int unit = name.indexOf('[');
+					if (unit >= 0)
+						name = name.substring(0, unit);
+					if (meters.contains(name.trim()))
+						codes.add(vars[0]);
 				}
 			}
-			catch (IOException e2)
+
+			if (line == null || codes.size() != meters.size())
 			{
-			} // if we couldn't read the third line, don't bother.
+				throw new SimulationException(SimulationFailure.PARSE,
+						"meters missing from " + filename);
+			}
 
-			rval = (a + b + c + a2 + b2 + c2) / 3.6E6;
+			double sum = 0;
+			while ((line = in.readLine()) != null
+					&& !line.startsWith("End of Data"))
+			{
+				int comma = line.indexOf(',');
+				if (comma > 0 && codes.contains(line.substring(0, comma)))
+				{
+					int end = line.indexOf(',', comma + 1);
+					sum += Double.parseDouble(line.substring(comma + 1,
+							end < 0 ? line.length() : end));
+				}
+			}
 
-			in.close();
+			return sum / 3.6E6;
 		}
 		catch (IOException e)
 		{
-			System.err.println(
-					"errors when reading output file..." + e.toString());
-			e.printStackTrace();
+			throw new SimulationException(SimulationFailure.PARSE,
+					"errors when reading meter file..." + e.toString(), e);
 		}
 		catch (NumberFormatException e)
 		{
-			System.err.println("error parsing output file");
-			e.printStackTrace();
+			throw new SimulationException(SimulationFailure.PARSE,
+					"error parsing meter file " + filename, e);
 		}
-		catch (Exception e)
-		{
-			System.err.println("Unknown error when reading output file");
-			e.printStackTrace();
-		}
-
-		return rval;
 	}
 
-	private void makeFileFromTemplate(String templatePath, String outputPath,
-			boolean[] windows, boolean[] overhangs, boolean[] fins,
-			boolean finsLeftRight)
+	/**
+	 * write the input file for a solution; the template is parsed once and
+	 * reused for every evaluation
+	 *
+	 * @return the template used, null if the file could not be written
+	 */
+	private FacadeTemplate makeFileFromTemplate(String templatePath,
+			String outputPath, boolean[] windows, boolean[] overhangs,
+			boolean[] fins, boolean finsLeftRight, boolean lean)
 	{
-		BufferedReader in;
-		PrintStream out;
 		try
 		{
-			// open template file
-			in = new BufferedReader(new FileReader(templatePath));
-			// open output file
-			out = new java.io.PrintStream(
-					new java.io.FileOutputStream(outputPath));
-
-			// loop over all lines in the file
-			String line;
-			while ((line = in.readLine()) != null)
+			FacadeTemplate t = template;
+			if (t == null || !t.getPath().equals(templatePath)
+					|| t.isLean() != lean)
 			{
-				// line starts with a BOP_ marker?
-				if (line.startsWith("BOP_NorthAxis"))
+				synchronized (this)
 				{
-					line = line.replaceFirst("BOP_NorthAxis", "0.0"); // fixed
-																		// for
-																		// now
-				} else if (line.contains("BOP_"))
-				{ // line contains an indexed BOP_ marker?
-					// what's the marker?
-					// String rawkey = line.substring(line.indexOf("BOP_") + 4,
-					// line.indexOf("]"));
-					// String[] keyParts = rawkey.split("\\[");
-					// int index = Integer.parseInt(keyParts[1]) - 1;
-					// if (keyParts[0].equals("WindowWall")) {
-					// line = (windows[index] ? "F" : "!") +
-					// line.substring(line.indexOf("]")+1);
-					// } else if (keyParts[0].equals("Overhang")) {
-					// line = ((overhangs[index] && windows[index]) ? "S" : "!")
-					// + line.substring(line.indexOf("]")+1);
-					// } else if (keyParts[0].equals("Fin")) {
-					// line = (((finsLeft[index] || finsRight[index]) &&
-					// windows[index]) ? "S" : "!") +
-					// line.substring(line.indexOf("]")+1);
-					// } else if (keyParts[0].equals("FinLeft")) { // bit below
-					// allows for commenting out all three lines if neither fine
-					// is present; otherwise we include the line but with a 0.0
-					// size
-					// line = (finsLeft[index] && windows[index] ? "0.3" :
-					// finsRight[index] && windows[index]?"0.0":"!") +
-					// line.substring(line.indexOf("]")+1);
-					// } else if (keyParts[0].equals("FinRight")) {
-					// line = (finsRight[index] && windows[index] ? "0.3" :
-					// finsLeft[index] && windows[index]?"0.0":"!") +
-					// line.substring(line.indexOf("]")+1);
-					// }
-
-					// split line by "BOP_"
-					String[] parts = line.split("BOP_");
-
-					// now, for each of the bits of the split line, parse for
-					// tokens and replace as appropriate
-					line = "";
-					for (String part : parts)
+					t = template;
+					if (t == null || !t.getPath().equals(templatePath)
+							|| t.isLean() != lean)
 					{
-						// split by [ and ] to get the key name, number, and
-						// bits after
-						String[] keyParts = part.split("[\\[\\]]");
-
-						if (keyParts.length > 1)
-						{ // ie a key found
-							int index = Integer.parseInt(keyParts[1]) - 1;
-
-							if (keyParts[0].equals("WindowWall"))
-							{
-								line += (windows[index] ? "F" : "!");
-							} else if (keyParts[0].equals("Overhang"))
-							{
-								line += ((overhangs[index] && windows[index])
-										? "S"
-										: "!");
-							} else if (keyParts[0].equals("Fin"))
-							{
-								line += ((fins[index] && windows[index])
-										? "S"
-										: "!");
-							} else if (keyParts[0].equals("FinLeft"))
-							{
-								line += (!finsLeftRight && fins[index]
-										&& windows[index] ? "0.3" : "0.0");
-							} else if (keyParts[0].equals("FinRight"))
-							{
-								line += (finsLeftRight && fins[index]
-										&& windows[index] ? "0.3" : "0.0");
-							}
-
-							// always add last bit
-							line += keyParts[2];
-						} else
-						{
-							line += keyParts[0];
-						}
+						t = new FacadeTemplate(templatePath, lean);
+						template = t;
 					}
 				}
-
-				// output line
-				out.println(line);
 			}
 
-			in.close();
-			out.close();
+			t.write(outputPath, windows, overhangs, fins, finsLeftRight);
+			return t;
 		}
 		catch (IOException e)
 		{
 			System.err.println(
 					"errors when generating input file..." + e.toString());
 			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/** @return the number of bytes in the files below a directory */
+	private static long directorySize(File path)
+	{
+		long size = 0;
+		File[] files = path.listFiles();
+		if (files != null)
+		{
+			for (File f : files)
+			{
+				size += f.isDirectory() ? directorySize(f) : f.length();
+			}
 		}
+		return size;
 	}
 
 	/** delete output directory once we're done. */
@@ -571,6 +855,17 @@ public class WindowShadingProblem
 		return (path.delete());
 	}
 
+	private static BitSet toBitSet(boolean[] solution)
+	{
+		BitSet bits = new BitSet(solution.length);
+		for (int i = 0; i < solution.length; i++)
+		{
+			if (solution[i])
+				bits.set(i);
+		}
+		return bits;
+	}
+
 	private static String filenameZeroPad(int number)
 	{
 		if (number < 10)
@@ -658,5 +953,14 @@ public class WindowShadingProblem
 		 * memory or not)
 		 */
 		public int solutionNumber;
+
+		/**
+		 * why the solution could not be evaluated, null if it was; energy and
+		 * cost are NaN when it is set
+		 */
+		public SimulationFailure failure;
+
+		/** true if the solution was not simulated because it failed before */
+		public boolean quarantined;
 	}
 }
@@ -0,0 +1,71 @@
+package indicators;
+
+/**
+ * NSGA-II crowding distance over primitive objective columns. A front is passed as an array of indices into the
+ * columns; the distances are written to a column of the same indexing, and the most isolated members can be moved
+ * to the front of the index array by partial selection instead of a full sort. The scratch buffers are kept
+ * between calls.
+ */
+public class CrowdingDistance
+{
+	// scratch, grown on demand and reused across calls
+	private int[] order = new int[0];
+
+	/**
+	 * Computes the crowding distance of every member of a front. The extreme members of each objective get an
+	 * infinite distance; an objective on which all members are equal adds nothing to the distances.
+	 *
+	 * @param members Indices into the objective columns.
+	 * @param n The number of members.
+	 * @param f1 The first objective column.
+	 * @param f2 The second objective column.
+	 * @param distance Receives the distance of every member, at the member's index.
+	 */
+	public void assign(int[] members, int n, double[] f1, double[] f2, double[] distance)
+	{
+		for (int i = 0; i < n; i++)
+			distance[members[i]] = 0;
+		if (n == 0)
+			return;
+		if (order.length < n)
+			order = new int[n];
+
+		accumulate(members, n, f1, f2, distance);
+		accumulate(members, n, f2, f1, distance);
+	}
+
+	/**
+	 * Adds the normalised gaps of one objective to the distances.
+	 */
+	private void accumulate(int[] members, int n, double[] key, double[] tie, double[] distance)
+	{
+		System.arraycopy(members, 0, order, 0, n);
+		IndexSort.sort(order, 0, n, key, tie);
+
+		distance[order[0]] = Double.POSITIVE_INFINITY;
+		distance[order[n - 1]] = Double.POSITIVE_INFINITY;
+
+		double range = key[order[n - 1]] - key[order[0]];
+		if (!(range > 0)) // all equal (or not a number), the objective tells the members apart by nothing
+			return;
+
+		for (int j = 1; j < n - 1; j++)
+			distance[order[j]] += (key[order[j + 1]] - key[order[j - 1]]) / range;
+	}
+
+	/**
+	 * Reorders {@code members[0..n)} so that the {@code keep} members with the largest crowding distance come first.
+	 *
+	 * @param members Indices into the objective columns.
+	 * @param n The number of members.
+	 * @param keep How many members to retain.
+	 * @param f1 The first objective column.
+	 * @param f2 The second objective column.
+	 * @param distance Receives the distance of every member, at the member's index.
+	 */
+	public void truncate(int[] members, int n, int keep, double[] f1, double[] f2, double[] distance)
+	{
+		assign(members, n, f1, f2, distance);
+		IndexSort.selectLargest(members, 0, n, keep, distance);
+	}
+}
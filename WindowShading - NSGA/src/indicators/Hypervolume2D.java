@@ -0,0 +1,67 @@
+package indicators;
+
+/**
+ * Exact hypervolume of a two objective (minimisation) point set with respect to a reference point.
+ *
+ * Sorted on the first objective, the non-dominated points form a staircase whose second objective strictly
+ * decreases, so the volume is the sum of one rectangle per step and a single sweep computes it.
+ */
+public final class Hypervolume2D
+{
+	private Hypervolume2D()
+	{
+	}
+
+	/**
+	 * Computes the hypervolume of a point set from scratch in O(n log n). The points do not need to be sorted or
+	 * mutually non-dominated.
+	 *
+	 * @param f1 The first objective of each point.
+	 * @param f2 The second objective of each point.
+	 * @param n The number of points to read from the arrays.
+	 * @param ref1 The reference point's first objective.
+	 * @param ref2 The reference point's second objective.
+	 * @return The hypervolume.
+	 */
+	public static double compute(double[] f1, double[] f2, int n, double ref1, double ref2)
+	{
+		int[] idx = new int[n];
+		for (int i = 0; i < n; i++)
+			idx[i] = i;
+		return compute(idx, n, f1, f2, ref1, ref2);
+	}
+
+	/**
+	 * Computes the hypervolume of the points selected by an index array, without allocating. The indices are
+	 * reordered (sorted on the objectives) as a side effect.
+	 *
+	 * @param idx Indices into the objective columns.
+	 * @param n The number of indices to read.
+	 * @param f1 The first objective column.
+	 * @param f2 The second objective column.
+	 * @param ref1 The reference point's first objective.
+	 * @param ref2 The reference point's second objective.
+	 * @return The hypervolume.
+	 */
+	public static double compute(int[] idx, int n, double[] f1, double[] f2, double ref1, double ref2)
+	{
+		IndexSort.sort(idx, 0, n, f1, f2);
+
+		// sweep in order of the first objective, adding the horizontal strip each new best second objective opens
+		double volume = 0;
+		double bound = ref2;
+		for (int i = 0; i < n; i++)
+		{
+			int p = idx[i];
+			if (f1[p] >= ref1)
+				break;
+			if (f2[p] < bound)
+			{
+				volume += (ref1 - f1[p]) * (bound - f2[p]);
+				bound = f2[p];
+			}
+		}
+
+		return volume;
+	}
+}
@@ -0,0 +1,191 @@
+package indicators;
+
+/**
+ * SMS-EMOA style reduction of a set of mutually non-dominated points: the point with the smallest exclusive
+ * hypervolume contribution is discarded, its two neighbours' contributions are updated, and so on until the
+ * requested number of points remain. Runs in O(n log n) and keeps its scratch buffers between calls.
+ */
+public class HypervolumeTruncation
+{
+	/** Reference point, first objective. */
+	private final double ref1;
+	/** Reference point, second objective. */
+	private final double ref2;
+
+	// scratch, grown on demand and reused across calls
+	private int[] order = new int[0];
+	private int[] prev = new int[0];
+	private int[] next = new int[0];
+	private double[] contribution = new double[0];
+	private int[] heap = new int[0];
+	private int[] heapPosition = new int[0];
+	private int heapSize;
+
+	/**
+	 * Constructor for the truncation operator.
+	 *
+	 * @param ref1 The reference point's first objective.
+	 * @param ref2 The reference point's second objective.
+	 */
+	public HypervolumeTruncation(double ref1, double ref2)
+	{
+		this.ref1 = ref1;
+		this.ref2 = ref2;
+	}
+
+	/**
+	 * Reorders {@code members[0..n)} so that the {@code keep} points that are retained come first.
+	 *
+	 * @param members Indices into the objective columns; all must be mutually non-dominated.
+	 * @param n The number of members.
+	 * @param keep How many members to retain.
+	 * @param f1 The first objective column.
+	 * @param f2 The second objective column.
+	 */
+	public void truncate(int[] members, int n, int keep, double[] f1, double[] f2)
+	{
+		if (keep >= n)
+			return;
+		ensureCapacity(n);
+
+		// positions 0..n-1 are the members sorted on the first objective, linked both ways
+		for (int i = 0; i < n; i++)
+			order[i] = members[i];
+		IndexSort.sort(order, 0, n, f1, f2);
+		for (int i = 0; i < n; i++)
+		{
+			prev[i] = i - 1;
+			next[i] = i + 1 < n ? i + 1 : -1;
+		}
+
+		heapSize = 0;
+		for (int i = 0; i < n; i++)
+		{
+			contribution[i] = contribution(i, f1, f2);
+			heapPosition[i] = heapSize;
+			heap[heapSize++] = i;
+		}
+		for (int i = heapSize / 2 - 1; i >= 0; i--)
+			siftDown(i);
+
+		for (int removed = 0; removed < n - keep; removed++)
+		{
+			int worst = heap[0];
+			heapRemove(0);
+
+			int p = prev[worst], q = next[worst];
+			if (p >= 0)
+				next[p] = q;
+			if (q >= 0)
+				prev[q] = p;
+			prev[worst] = next[worst] = -2; // mark as discarded
+
+			if (p >= 0)
+				update(p, f1, f2);
+			if (q >= 0)
+				update(q, f1, f2);
+		}
+
+		// survivors first, in front order
+		int k = 0;
+		for (int i = 0; i < n; i++)
+			if (prev[i] != -2)
+				members[k++] = order[i];
+		for (int i = 0; i < n; i++)
+			if (prev[i] == -2)
+				members[k++] = order[i];
+	}
+
+	/**
+	 * Exclusive contribution of the point at sorted position {@code i} given its current neighbours. Points outside
+	 * the reference box are given a negative contribution so they are discarded first.
+	 */
+	private double contribution(int i, double[] f1, double[] f2)
+	{
+		int p = order[i];
+		if (!(f1[p] < ref1 && f2[p] < ref2))
+			return -1;
+
+		double right = next[i] >= 0 ? Math.min(ref1, f1[order[next[i]]]) : ref1;
+		double top = prev[i] >= 0 ? Math.min(ref2, f2[order[prev[i]]]) : ref2;
+
+		return (right - f1[p]) * (top - f2[p]);
+	}
+
+	private void update(int i, double[] f1, double[] f2)
+	{
+		double old = contribution[i];
+		contribution[i] = contribution(i, f1, f2);
+		if (contribution[i] < old)
+			siftUp(heapPosition[i]);
+		else
+			siftDown(heapPosition[i]);
+	}
+
+	private void heapRemove(int h)
+	{
+		heapSize--;
+		if (h == heapSize)
+			return;
+		heap[h] = heap[heapSize];
+		heapPosition[heap[h]] = h;
+		siftDown(h);
+		siftUp(heapPosition[heap[h]]);
+	}
+
+	private void siftUp(int h)
+	{
+		int v = heap[h];
+		while (h > 0)
+		{
+			int parent = (h - 1) >>> 1;
+			if (!less(v, heap[parent]))
+				break;
+			heap[h] = heap[parent];
+			heapPosition[heap[h]] = h;
+			h = parent;
+		}
+		heap[h] = v;
+		heapPosition[v] = h;
+	}
+
+	private void siftDown(int h)
+	{
+		int v = heap[h];
+		while (true)
+		{
+			int child = 2 * h + 1;
+			if (child >= heapSize)
+				break;
+			if (child + 1 < heapSize && less(heap[child + 1], heap[child]))
+				child++;
+			if (!less(heap[child], v))
+				break;
+			heap[h] = heap[child];
+			heapPosition[heap[h]] = h;
+			h = child;
+		}
+		heap[h] = v;
+		heapPosition[v] = h;
+	}
+
+	/** Smaller contribution first; ties go to the later position so the outcome does not depend on heap layout. */
+	private boolean less(int a, int b)
+	{
+		if (contribution[a] != contribution[b])
+			return contribution[a] < contribution[b];
+		return a > b;
+	}
+
+	private void ensureCapacity(int n)
+	{
+		if (order.length >= n)
+			return;
+		order = new int[n];
+		prev = new int[n];
+		next = new int[n];
+		contribution = new double[n];
+		heap = new int[n];
+		heapPosition = new int[n];
+	}
+}
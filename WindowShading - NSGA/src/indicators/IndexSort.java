@@ -0,0 +1,181 @@
+package indicators;
+
+/**
+ * Sorts arrays of indices by the values they point to in primitive key columns,
+ * so that objective vectors never have to be boxed or copied to be ordered.
+ */
+public final class IndexSort
+{
+	/** Ranges shorter than this are finished with insertion sort. */
+	private static final int INSERTION_THRESHOLD = 16;
+
+	private IndexSort()
+	{
+	}
+
+	/**
+	 * Sorts {@code idx[from..to)} in ascending order of {@code key}, breaking ties in ascending order of {@code tie}.
+	 *
+	 * @param idx The indices to sort.
+	 * @param from The first position to sort (inclusive).
+	 * @param to The last position to sort (exclusive).
+	 * @param key The primary key column.
+	 * @param tie The secondary key column, or {@code null} to leave ties in any order.
+	 */
+	public static void sort(int[] idx, int from, int to, double[] key, double[] tie)
+	{
+		while (to - from > INSERTION_THRESHOLD)
+		{
+			int mid = (from + to) >>> 1;
+			int pivot = median(idx[from], idx[mid], idx[to - 1], key, tie);
+
+			// three way partition around the pivot
+			int lt = from, i = from, gt = to - 1;
+			while (i <= gt)
+			{
+				int c = compare(idx[i], pivot, key, tie);
+				if (c < 0)
+					swap(idx, lt++, i++);
+				else if (c > 0)
+					swap(idx, i, gt--);
+				else
+					i++;
+			}
+
+			// recurse into the smaller half, loop over the bigger one
+			if (lt - from < to - gt - 1)
+			{
+				sort(idx, from, lt, key, tie);
+				from = gt + 1;
+			}
+			else
+			{
+				sort(idx, gt + 1, to, key, tie);
+				to = lt;
+			}
+		}
+
+		for (int i = from + 1; i < to; i++)
+		{
+			int v = idx[i];
+			int j = i - 1;
+			while (j >= from && compare(idx[j], v, key, tie) > 0)
+			{
+				idx[j + 1] = idx[j];
+				j--;
+			}
+			idx[j + 1] = v;
+		}
+	}
+
+	/**
+	 * Partially orders {@code idx[from..to)} so that the {@code k} indices with the largest {@code key} come first,
+	 * in no particular order among themselves. Ties are broken towards the smaller index so the selection does not
+	 * depend on the initial order. Expected linear time.
+	 *
+	 * @param idx The indices to select from.
+	 * @param from The first position (inclusive).
+	 * @param to The last position (exclusive).
+	 * @param k How many indices to move to the front.
+	 * @param key The key column.
+	 */
+	public static void selectLargest(int[] idx, int from, int to, int k, double[] key)
+	{
+		int target = from + k; // first position that is not selected
+		if (k <= 0 || target >= to)
+			return;
+
+		while (to - from > INSERTION_THRESHOLD)
+		{
+			int mid = (from + to) >>> 1;
+			int pivot = medianLargest(idx[from], idx[mid], idx[to - 1], key);
+
+			int lt = from, i = from, gt = to - 1;
+			while (i <= gt)
+			{
+				int c = compareLargest(idx[i], pivot, key);
+				if (c < 0)
+					swap(idx, lt++, i++);
+				else if (c > 0)
+					swap(idx, i, gt--);
+				else
+					i++;
+			}
+
+			// the boundary falls inside one of the three parts, only that one needs more work
+			if (target < lt)
+				to = lt;
+			else if (target > gt)
+				from = gt + 1;
+			else
+				return;
+		}
+
+		for (int i = from + 1; i < to; i++)
+		{
+			int v = idx[i];
+			int j = i - 1;
+			while (j >= from && compareLargest(idx[j], v, key) > 0)
+			{
+				idx[j + 1] = idx[j];
+				j--;
+			}
+			idx[j + 1] = v;
+		}
+	}
+
+	/**
+	 * Compares the entries {@code a} and {@code b} of the key columns.
+	 *
+	 * @return A negative number, zero or a positive number as {@code a} orders before, with or after {@code b}.
+	 */
+	public static int compare(int a, int b, double[] key, double[] tie)
+	{
+		int c = Double.compare(key[a], key[b]);
+		if (c == 0 && tie != null)
+			c = Double.compare(tie[a], tie[b]);
+		return c;
+	}
+
+	private static int median(int a, int b, int c, double[] key, double[] tie)
+	{
+		if (compare(a, b, key, tie) < 0)
+		{
+			if (compare(b, c, key, tie) < 0)
+				return b;
+			return compare(a, c, key, tie) < 0 ? c : a;
+		}
+		if (compare(a, c, key, tie) < 0)
+			return a;
+		return compare(b, c, key, tie) < 0 ? c : b;
+	}
+
+	/** Larger key first, then smaller index. */
+	private static int compareLargest(int a, int b, double[] key)
+	{
+		int c = Double.compare(key[b], key[a]);
+		if (c == 0)
+			c = Integer.compare(a, b);
+		return c;
+	}
+
+	private static int medianLargest(int a, int b, int c, double[] key)
+	{
+		if (compareLargest(a, b, key) < 0)
+		{
+			if (compareLargest(b, c, key) < 0)
+				return b;
+			return compareLargest(a, c, key) < 0 ? c : a;
+		}
+		if (compareLargest(a, c, key) < 0)
+			return a;
+		return compareLargest(b, c, key) < 0 ? c : b;
+	}
+
+	private static void swap(int[] idx, int i, int j)
+	{
+		int t = idx[i];
+		idx[i] = idx[j];
+		idx[j] = t;
+	}
+}
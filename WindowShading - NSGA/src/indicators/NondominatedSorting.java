@@ -0,0 +1,164 @@
+package indicators;
+
+/**
+ * Non-dominated sorting of two objective (minimisation) points held in primitive columns.
+ *
+ * The points are sorted once on the first objective, ties on the second. In that order a point is dominated
+ * exactly when an earlier point of the same front has a smaller second objective, or an equal one with a smaller
+ * first objective, so each front is peeled off the remaining points in a single pass. Ranking n points into
+ * m fronts costs O(n log n + n m) instead of the O(n^2) comparisons of the fast non-dominated sort, and the
+ * scratch buffers are kept between calls.
+ */
+public class NondominatedSorting
+{
+	// scratch, grown on demand and reused across calls
+	private int[] members = new int[0];
+	private int[] pending = new int[0];
+	private int[] frontEnd = new int[0];
+	private int fronts;
+
+	// state of the sort in progress
+	private double[] f1;
+	private double[] f2;
+	private int[] rank;
+	private int placed;
+	private int remaining;
+
+	/**
+	 * Ranks the points {@code [from, to)} of the columns. Rank 0 is the non-dominated front. Points with a
+	 * {@code NaN} objective (solutions that could not be evaluated) share a last front behind every other point.
+	 *
+	 * @param f1 The first objective column.
+	 * @param f2 The second objective column.
+	 * @param rank Receives the rank of every point.
+	 * @param from The first point (inclusive).
+	 * @param to The last point (exclusive).
+	 * @return The number of fronts.
+	 */
+	public int sort(double[] f1, double[] f2, int[] rank, int from, int to)
+	{
+		begin(f1, f2, rank, from, to);
+		while (nextFront() > 0)
+			;
+		return fronts;
+	}
+
+	/**
+	 * Prepares a lazy sort of the points {@code [from, to)}: the points are ordered, but no front is peeled until
+	 * {@link #nextFront()} asks for it, so a caller that only needs the best fronts never pays for the rest.
+	 *
+	 * @param f1 The first objective column.
+	 * @param f2 The second objective column.
+	 * @param rank Receives the rank of every point that is peeled.
+	 * @param from The first point (inclusive).
+	 * @param to The last point (exclusive).
+	 */
+	public void begin(double[] f1, double[] f2, int[] rank, int from, int to)
+	{
+		int n = to - from;
+		ensureCapacity(n);
+
+		for (int i = 0; i < n; i++)
+			pending[i] = from + i;
+		IndexSort.sort(pending, 0, n, f1, f2);
+
+		this.f1 = f1;
+		this.f2 = f2;
+		this.rank = rank;
+		fronts = 0;
+		placed = 0;
+		remaining = n;
+	}
+
+	/**
+	 * Peels the next front off the points not ranked yet.
+	 *
+	 * @return The size of the front, 0 when every point has been ranked.
+	 */
+	public int nextFront()
+	{
+		if (remaining == 0)
+		{
+			f1 = f2 = null;
+			rank = null;
+			return 0;
+		}
+
+		int start = placed;
+		double minF2 = Double.POSITIVE_INFINITY;
+		double minF1 = Double.POSITIVE_INFINITY;
+		int kept = 0;
+		for (int k = 0; k < remaining; k++)
+		{
+			int p = pending[k];
+			if (Double.isNaN(f1[p]) || Double.isNaN(f2[p]))
+			{
+				pending[kept++] = p; // no objectives, ranked after every point that has them
+			}
+			else if (minF2 < f2[p] || (minF2 == f2[p] && minF1 < f1[p]))
+			{
+				pending[kept++] = p; // dominated, try again in a later front
+			}
+			else
+			{
+				members[placed++] = p;
+				rank[p] = fronts;
+				if (f2[p] < minF2)
+				{
+					minF2 = f2[p];
+					minF1 = f1[p];
+				}
+			}
+		}
+		if (placed == start)
+		{
+			// only points without objectives are left, they make up the last front
+			for (int k = 0; k < kept; k++)
+			{
+				members[placed++] = pending[k];
+				rank[pending[k]] = fronts;
+			}
+			kept = 0;
+		}
+		frontEnd[fronts++] = placed;
+		remaining = kept;
+
+		return placed - start;
+	}
+
+	/**
+	 * @return The points peeled so far grouped by front; front {@code k} is
+	 *         {@code [getFrontStart(k), getFrontEnd(k))}, sorted on the first objective.
+	 */
+	public int[] getMembers()
+	{
+		return members;
+	}
+
+	/**
+	 * @return The number of fronts peeled so far.
+	 */
+	public int getFronts()
+	{
+		return fronts;
+	}
+
+	public int getFrontStart(int k)
+	{
+		return k == 0 ? 0 : frontEnd[k - 1];
+	}
+
+	public int getFrontEnd(int k)
+	{
+		return frontEnd[k];
+	}
+
+	private void ensureCapacity(int n)
+	{
+		if (members.length >= n)
+			return;
+		members = new int[n];
+		pending = new int[n];
+		frontEnd = new int[n];
+	}
+}
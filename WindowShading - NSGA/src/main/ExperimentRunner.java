@@ -0,0 +1,441 @@
+package main;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import Optimisation.NSGA2_E;
+import Optimisation.RunSummary;
+import plotting.Plotting;
+import regression.Model;
+
+/**
+ * Runs every configuration of an experiment with the same K seeds, several runs at a time, and writes the
+ * statistics of the runs without opening any window.
+ *
+ * All runs share one surrogate model and one fork/join pool with a thread per core, so however many runs are in
+ * flight the experiment never uses more than the machine's cores. The model is trained once and not retrained
+ * during the runs, and the final population is not simulated, so a run only depends on its configuration and
+ * seed. Run {@code i} of every configuration uses the seed {@code baseSeed + i}, which makes the configurations
+ * comparable run by run.
+ *
+ * Three files are written to the output directory: {@code runs.csv} with one row per run, {@code summary.csv}
+ * with the mean, standard deviation and quartiles of every statistic per configuration, and {@code boxplot.csv}
+ * with the quartiles, the whiskers (the furthest values within 1.5 interquartile ranges) and the outliers.
+ * Each run's headless report is written next to them.
+ */
+public class ExperimentRunner
+{
+	/** The statistics compared between configurations. */
+	private static final String[] STATISTICS = { "lastHypervolume", "archiveHypervolume", "evaluations", "elapsedMs" };
+
+	/**
+	 * A variant of the optimiser, written {@code name} or {@code name:key=value,key=value}. The keys are
+	 * {@code selection} ({@code crowding} or {@code hypervolume}), {@code population}, {@code generations} and
+	 * {@code epsilon} (the archive grid, {@code energy/cost}).
+	 */
+	public static final class Configuration
+	{
+		private final String name;
+		private boolean hypervolumeSelection;
+		private int population = -1;
+		private int generations = -1;
+		private double epsilonEnergy;
+		private double epsilonCost;
+
+		/**
+		 * Parses a configuration.
+		 *
+		 * @param spec The configuration as written on the command line.
+		 * @throws IllegalArgumentException If a key or value is not understood.
+		 */
+		public Configuration(String spec)
+		{
+			int colon = spec.indexOf(':');
+			name = colon < 0 ? spec : spec.substring(0, colon);
+			if (colon < 0)
+				return;
+
+			for (String option : spec.substring(colon + 1).split(","))
+			{
+				String[] kv = option.split("=", 2);
+				if (kv.length != 2)
+					throw new IllegalArgumentException("expected key=value in " + spec + ": " + option);
+				switch (kv[0])
+				{
+					case "selection":
+						if (!kv[1].equals("crowding") && !kv[1].equals("hypervolume"))
+							throw new IllegalArgumentException("unknown selection " + kv[1]);
+						hypervolumeSelection = kv[1].equals("hypervolume");
+						break;
+					case "population":
+						population = Integer.parseInt(kv[1]);
+						break;
+					case "generations":
+						generations = Integer.parseInt(kv[1]);
+						break;
+					case "epsilon":
+						String[] eps = kv[1].split("/", 2);
+						epsilonEnergy = Double.parseDouble(eps[0]);
+						epsilonCost = eps.length > 1 ? Double.parseDouble(eps[1]) : epsilonEnergy;
+						break;
+					default:
+						throw new IllegalArgumentException("unknown option " + kv[0] + " in " + spec);
+				}
+			}
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * Sets the options of the configuration on an optimiser.
+		 *
+		 * @param nsga The optimiser.
+		 */
+		void apply(NSGA2_E nsga)
+		{
+			nsga.setHypervolumeSelection(hypervolumeSelection);
+			if (population > 0)
+				nsga.setNumSolutions(population);
+			if (generations > 0)
+				nsga.setMaxEvals(generations);
+			nsga.setArchiveEpsilon(epsilonEnergy, epsilonCost);
+		}
+	}
+
+	/**
+	 * The outcome of one run.
+	 */
+	public static final class RunResult
+	{
+		private final Configuration configuration;
+		private final RunSummary summary;
+		private final double archiveHypervolume;
+
+		RunResult(Configuration configuration, RunSummary summary)
+		{
+			this.configuration = configuration;
+			this.summary = summary;
+			this.archiveHypervolume = Plotting.hypervolume(summary.getArchive());
+		}
+
+		public Configuration getConfiguration()
+		{
+			return configuration;
+		}
+
+		public RunSummary getSummary()
+		{
+			return summary;
+		}
+
+		public double getArchiveHypervolume()
+		{
+			return archiveHypervolume;
+		}
+
+		/**
+		 * @param statistic One of {@link ExperimentRunner#STATISTICS}.
+		 * @return The value of the statistic for this run.
+		 */
+		double get(String statistic)
+		{
+			switch (statistic)
+			{
+				case "lastHypervolume":
+					return summary.getLastHypervolume();
+				case "archiveHypervolume":
+					return archiveHypervolume;
+				case "evaluations":
+					return summary.getEvaluations();
+				case "elapsedMs":
+					return summary.getElapsedMillis();
+				default:
+					throw new IllegalArgumentException(statistic);
+			}
+		}
+	}
+
+	/** The surrogate model shared by the runs. */
+	private final Model model;
+	/** The directory the results are written to. */
+	private final File directory;
+	private final List<Configuration> configurations = new ArrayList<>();
+	/** Number of runs per configuration. */
+	private int runs = 10;
+	/** Seed of the first run of every configuration. */
+	private long baseSeed = 1;
+	/** Number of runs in flight at once. */
+	private int parallelRuns = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Entry point. Recognised arguments:
+	 * {@code -runs <k>} for the number of seeds per configuration,
+	 * {@code -seed <n>} for the seed of the first run,
+	 * {@code -parallel <p>} for the number of runs in flight at once (one per core by default),
+	 * {@code -out <dir>} for the directory the results are written to,
+	 * {@code -model <file>} for the file the trained surrogate is kept in ({@value regression.Model#DEFAULT_FILE} by default);
+	 * every other argument is a configuration (see {@link Configuration}), a single default one if none is given.
+	 *
+	 * @param args The command line arguments.
+	 */
+	public static void main(String[] args)
+	{
+		System.setProperty("java.awt.headless", "true");
+
+		String out = "experiment";
+		Integer runs = null;
+		Long seed = null;
+		Integer parallel = null;
+		String modelFile = Model.DEFAULT_FILE;
+		List<String> specs = new ArrayList<>();
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-runs") && i + 1 < args.length)
+				runs = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-seed") && i + 1 < args.length)
+				seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("-parallel") && i + 1 < args.length)
+				parallel = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-out") && i + 1 < args.length)
+				out = args[++i];
+			else if (args[i].equals("-model") && i + 1 < args.length)
+				modelFile = args[++i];
+			else
+				specs.add(args[i]);
+		}
+		if (specs.isEmpty())
+			specs.add("default");
+
+		Model model = new Model(Loader.load());
+		model.setModelFile(new File(modelFile));
+		model.go();
+
+		ExperimentRunner runner = new ExperimentRunner(model, new File(out));
+		for (String spec : specs)
+			runner.addConfiguration(new Configuration(spec));
+		if (runs != null)
+			runner.setRuns(runs);
+		if (seed != null)
+			runner.setBaseSeed(seed);
+		if (parallel != null)
+			runner.setParallelRuns(parallel);
+		runner.go();
+	}
+
+	/**
+	 * Constructor for an experiment.
+	 *
+	 * @param model The trained surrogate model the runs share.
+	 * @param directory The directory the results are written to, created if needed.
+	 */
+	public ExperimentRunner(Model model, File directory)
+	{
+		this.model = model;
+		this.directory = directory;
+	}
+
+	public void addConfiguration(Configuration configuration)
+	{
+		configurations.add(configuration);
+	}
+
+	/**
+	 * Mutator method for the number of runs per configuration.
+	 *
+	 * @param runs The number of seeds every configuration is run with.
+	 */
+	public void setRuns(int runs)
+	{
+		this.runs = runs;
+	}
+
+	/**
+	 * Mutator method for the seed of the first run; run {@code i} uses {@code baseSeed + i}.
+	 *
+	 * @param baseSeed The seed.
+	 */
+	public void setBaseSeed(long baseSeed)
+	{
+		this.baseSeed = baseSeed;
+	}
+
+	/**
+	 * Mutator method for the number of runs in flight at once. They share the cores either way, more runs in
+	 * flight only smooth out the sequential parts of each run.
+	 *
+	 * @param parallelRuns The number of concurrent runs.
+	 */
+	public void setParallelRuns(int parallelRuns)
+	{
+		this.parallelRuns = parallelRuns;
+	}
+
+	/**
+	 * Runs the experiment and writes its results.
+	 *
+	 * @return The runs that finished, by configuration and seed.
+	 */
+	public List<RunResult> go()
+	{
+		directory.mkdirs();
+		ForkJoinPool cores = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelRuns));
+
+		List<Future<RunResult>> futures = new ArrayList<>();
+		for (Configuration c : configurations)
+			for (int i = 0; i < runs; i++)
+			{
+				long seed = baseSeed + i;
+				futures.add(executor.submit(() -> run(c, seed, cores)));
+			}
+
+		List<RunResult> results = new ArrayList<>();
+		for (Future<RunResult> f : futures)
+		{
+			try
+			{
+				results.add(f.get());
+			}
+			catch (ExecutionException e)
+			{
+				System.err.println("run failed:");
+				e.getCause().printStackTrace();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		executor.shutdown();
+		cores.shutdown();
+
+		writeRuns(results);
+		writeStatistics(results);
+		System.out.println("experiment written to " + directory);
+		return results;
+	}
+
+	/**
+	 * Runs one configuration with one seed.
+	 */
+	private RunResult run(Configuration configuration, long seed, ForkJoinPool cores)
+	{
+		NSGA2_E nsga = new NSGA2_E();
+		configuration.apply(nsga);
+		nsga.setModel(model);
+		nsga.setPool(cores);
+		nsga.setRetrainInterval(0);
+		nsga.setValidateSurrogate(false);
+		nsga.setSeed(seed);
+		nsga.setHeadless(true);
+		nsga.setReportFile(new File(directory, configuration.getName() + "-" + seed + ".txt").getPath());
+		nsga.go();
+		return new RunResult(configuration, nsga.getSummary());
+	}
+
+	private void writeRuns(List<RunResult> results)
+	{
+		try (PrintStream out = new PrintStream(new File(directory, "runs.csv")))
+		{
+			out.println("configuration,seed,generations,evaluations,elapsedMs,firstHypervolume,lastHypervolume,"
+					+ "archiveSize,archiveHypervolume");
+			for (RunResult r : results)
+			{
+				RunSummary s = r.getSummary();
+				out.println(r.getConfiguration().getName() + "," + s.getSeed() + "," + s.getGenerations() + ","
+						+ s.getEvaluations() + "," + s.getElapsedMillis() + "," + format(s.getFirstHypervolume())
+						+ "," + format(s.getLastHypervolume()) + "," + s.getArchive().length + ","
+						+ format(r.getArchiveHypervolume()));
+			}
+		}
+		catch (FileNotFoundException e)
+		{
+			System.err.println("could not write runs: " + e.getMessage());
+		}
+	}
+
+	private void writeStatistics(List<RunResult> results)
+	{
+		try (PrintStream summary = new PrintStream(new File(directory, "summary.csv"));
+				PrintStream boxplot = new PrintStream(new File(directory, "boxplot.csv")))
+		{
+			summary.println("configuration,statistic,runs,mean,sd,min,q1,median,q3,max");
+			boxplot.println("configuration,statistic,lowerWhisker,q1,median,q3,upperWhisker,outliers");
+			for (Configuration c : configurations)
+				for (String statistic : STATISTICS)
+				{
+					double[] v = results.stream().filter(r -> r.getConfiguration() == c)
+							.mapToDouble(r -> r.get(statistic)).sorted().toArray();
+					if (v.length == 0)
+						continue;
+
+					double mean = Arrays.stream(v).average().getAsDouble();
+					double ss = 0;
+					for (double x : v)
+						ss += (x - mean) * (x - mean);
+					double sd = v.length > 1 ? Math.sqrt(ss / (v.length - 1)) : 0;
+					double q1 = quantile(v, 0.25);
+					double median = quantile(v, 0.5);
+					double q3 = quantile(v, 0.75);
+
+					String row = c.getName() + "," + statistic + "," + v.length + "," + format(mean) + ","
+							+ format(sd) + "," + format(v[0]) + "," + format(q1) + "," + format(median) + ","
+							+ format(q3) + "," + format(v[v.length - 1]);
+					summary.println(row);
+					System.out.println(row);
+
+					// Tukey's whiskers: the furthest values within 1.5 IQR of the box
+					double fence = 1.5 * (q3 - q1);
+					double low = Double.POSITIVE_INFINITY;
+					double high = Double.NEGATIVE_INFINITY;
+					StringBuilder outliers = new StringBuilder();
+					for (double x : v)
+					{
+						if (x < q1 - fence || x > q3 + fence)
+							outliers.append(outliers.length() == 0 ? "" : " ").append(format(x));
+						else
+						{
+							low = Math.min(low, x);
+							high = Math.max(high, x);
+						}
+					}
+					boxplot.println(c.getName() + "," + statistic + "," + format(low) + "," + format(q1) + ","
+							+ format(median) + "," + format(q3) + "," + format(high) + "," + outliers);
+				}
+		}
+		catch (FileNotFoundException e)
+		{
+			System.err.println("could not write statistics: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Quantile of sorted values, interpolated linearly between order statistics.
+	 */
+	private static double quantile(double[] sorted, double p)
+	{
+		double h = (sorted.length - 1) * p;
+		int lo = (int) Math.floor(h);
+		int hi = Math.min(lo + 1, sorted.length - 1);
+		return sorted[lo] + (h - lo) * (sorted[hi] - sorted[lo]);
+	}
+
+	private static String format(double d)
+	{
+		return String.format(Locale.ROOT, "%.4f", d);
+	}
+}
@@ -1,6 +1,19 @@
 package main;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
 import Optimisation.NSGA2_E;
+import WindowShading.FacadeGeometry;
+import WindowShading.MultiFidelityFitnessFunction;
+import WindowShading.WindowShadingFitnessFunction;
+import WindowShading.WindowShadingProblem;
+import metrics.EvaluationLog;
+import regression.FacadeFeatures;
 import regression.Model;
+import regression.ModelSelection;
+import regression.NetworkSettings;
 
 /**
  * 
@@ -13,12 +26,141 @@ public class SystemManager
 	private Model model;
 	/** Genetic Algorithm used to optimize the solutions. */
 	private NSGA2_E nsga;
+
+	/** The candidates of {@code -tune}: hidden layers, learning rates and epochs, every combination tried. */
+	private static final String[] TUNING_HIDDEN_LAYERS = { "a", "10", "30", "20/10" };
+	private static final double[] TUNING_LEARNING_RATES = { 0.1, 0.3 };
+	private static final int[] TUNING_EPOCHS = { 250, 500 };
+	private static final int TUNING_FOLDS = 5;
 	
+	/**
+	 * Entry point. Recognised arguments:
+	 * {@code -headless} to run without windows,
+	 * {@code -report <file>} for the file the headless report is written to,
+	 * {@code -gallery} to draw the archive's facades into a PNG next to the report,
+	 * {@code -metrics <file>} for the per-generation metrics (CSV if the name ends in .csv, JSON lines otherwise),
+	 * {@code -seed <n>} to reproduce an earlier run,
+	 * {@code -energyplus} to evaluate every solution with the full-year simulation instead of the surrogate,
+	 * {@code -multifidelity} to screen with the design-day simulation and only promote promising solutions to it,
+	 * {@code -model <file>} for the file the trained surrogate is reloaded from when its training data and settings are unchanged ({@value regression.Model#DEFAULT_FILE} by default),
+	 * {@code -features <raw|structural|both>} for the surrogate's inputs: the genome bits, a few structural features of the layout, or both,
+	 * {@code -network <settings>} for the surrogate's hyperparameters (see {@link regression.NetworkSettings}),
+	 * {@code -tune <seconds>} to choose them first by cross-validating a grid of candidates within that budget,
+	 * {@code -latency <microseconds>} for the longest mean prediction time a tuned surrogate may have,
+	 * {@code -outofrange <clamp|fallback>} for how an implausible prediction of the surrogate is replaced,
+	 * {@code -ceiling <milliseconds>} for how long a failing prediction may be retried before falling back,
+	 * {@code -prescreen <margin>} to only simulate the offspring the surrogate predicts within that fraction of the simulated front's energy,
+	 * {@code -async} to await the simulations asynchronously, as many in flight as there are cores, instead of on a thread each,
+	 * {@code -lean} to have EnergyPlus write only the meters the optimiser reads (full outputs otherwise, for auditing),
+	 * {@code -evallog <file>} to log every evaluation to a binary file ({@code metrics.EvaluationLog} converts it to CSV).
+	 * 
+	 * @param args The command line arguments.
+	 */
 	public static void main(String[] args)
 	{
+		boolean headless = false;
+		String report = null;
+		boolean gallery = false;
+		String metrics = null;
+		Long seed = null;
+		String evaluator = null;
+		String evaluationLog = null;
+		boolean async = false;
+		double prescreen = -1;
+		String modelFile = Model.DEFAULT_FILE;
+		String network = null;
+		FacadeFeatures.Encoding encoding = null;
+		long tuneSeconds = 0;
+		long latencyMicros = 0;
+		Model.OutOfRange outOfRange = null;
+		long ceilingMillis = -1;
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-headless"))
+				headless = true;
+			else if (args[i].equals("-report") && i + 1 < args.length)
+				report = args[++i];
+			else if (args[i].equals("-gallery"))
+				gallery = true;
+			else if (args[i].equals("-metrics") && i + 1 < args.length)
+				metrics = args[++i];
+			else if (args[i].equals("-seed") && i + 1 < args.length)
+				seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("-evallog") && i + 1 < args.length)
+				evaluationLog = args[++i];
+			else if (args[i].equals("-model") && i + 1 < args.length)
+				modelFile = args[++i];
+			else if (args[i].equals("-features") && i + 1 < args.length)
+				encoding = FacadeFeatures.Encoding.valueOf(args[++i].toUpperCase(Locale.ROOT));
+			else if (args[i].equals("-network") && i + 1 < args.length)
+				network = args[++i];
+			else if (args[i].equals("-tune") && i + 1 < args.length)
+				tuneSeconds = Long.parseLong(args[++i]);
+			else if (args[i].equals("-latency") && i + 1 < args.length)
+				latencyMicros = Long.parseLong(args[++i]);
+			else if (args[i].equals("-outofrange") && i + 1 < args.length)
+				outOfRange = Model.OutOfRange.valueOf(args[++i].toUpperCase(Locale.ROOT));
+			else if (args[i].equals("-ceiling") && i + 1 < args.length)
+				ceilingMillis = Long.parseLong(args[++i]);
+			else if (args[i].equals("-prescreen") && i + 1 < args.length)
+				prescreen = Double.parseDouble(args[++i]);
+			else if (args[i].equals("-async"))
+				async = true;
+			else if (args[i].equals("-lean"))
+				WindowShadingProblem.setLeanOutput(true);
+			else if (args[i].equals("-energyplus") || args[i].equals("-multifidelity"))
+				evaluator = args[i];
+			else
+				System.err.println("ignoring unknown argument " + args[i]);
+		}
+
+		if (headless) // before anything gets a chance to touch AWT
+			System.setProperty("java.awt.headless", "true");
+
+		EvaluationLog log = null;
+		if (evaluationLog != null)
+		{
+			try
+			{
+				log = EvaluationLog.open(new File(evaluationLog), FacadeGeometry.DEFAULT.getGenomeLength());
+			}
+			catch (IOException e)
+			{
+				System.err.println("could not open evaluation log " + evaluationLog + ": " + e.getMessage());
+			}
+		}
+
 		SystemManager sm = new SystemManager();
-		sm.trainModel();
+		sm.nsga.setHeadless(headless);
+		if (report != null)
+			sm.nsga.setReportFile(report);
+		sm.nsga.setReportGallery(gallery);
+		sm.nsga.setMetricsFile(metrics);
+		sm.nsga.setAsyncEvaluation(async);
+		if (seed != null)
+			sm.nsga.setSeed(seed);
+		sm.model.setModelFile(new File(modelFile));
+		if (encoding != null)
+			sm.model.setEncoding(encoding);
+		if (outOfRange != null)
+			sm.model.setOutOfRange(outOfRange);
+		if (ceilingMillis >= 0)
+			sm.model.setPredictionCeiling(TimeUnit.MILLISECONDS.toNanos(ceilingMillis));
+		if (network != null)
+			sm.model.setSettings(NetworkSettings.parse(network));
+		if (tuneSeconds > 0)
+			sm.model.tune(ModelSelection.grid(TUNING_HIDDEN_LAYERS, TUNING_LEARNING_RATES, TUNING_EPOCHS),
+					TUNING_FOLDS, TimeUnit.SECONDS.toMillis(tuneSeconds), TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+		sm.nsga.setPrescreenMargin(prescreen);
+		if (evaluator == null || prescreen >= 0)
+			sm.trainModel();
+		if ("-energyplus".equals(evaluator))
+			sm.nsga.setEvaluator(new WindowShadingFitnessFunction(false, true));
+		else if (evaluator != null)
+			sm.nsga.setEvaluator(new MultiFidelityFitnessFunction(FacadeGeometry.DEFAULT, false));
 		sm.go();
+		if (log != null)
+			log.close();
 	}
 	
 	/** 
@@ -0,0 +1,410 @@
+package metrics;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Binary log of every fitness evaluation: the genome, the evaluator, the result and how long it took.
+ *
+ * Evaluation threads only claim a slot of a bounded ring buffer with a compare-and-set and copy the record into
+ * preallocated primitive arrays; they never lock, allocate or wait. A background thread collects the published
+ * slots in order and appends them in batches to the file through a {@link FileChannel}. If the writer falls a whole
+ * buffer behind, new records are dropped and counted rather than slowing the evaluations down.
+ *
+ * The file starts with a header (the magic {@code EVLG}, the format version and the genome length) followed by
+ * fixed size big-endian records: the evaluator as a byte, the time since the log was opened and the duration of
+ * the evaluation in nanoseconds, the energy and the cost, and the genome packed in longs, bit {@code i} of the
+ * genome being bit {@code i % 64} of long {@code i / 64}. {@link #main(String[])} converts a log to CSV.
+ *
+ * The log is process wide, like the probes in {@link Metrics}: {@link #open(File, int)} installs it and the
+ * evaluation paths record to {@link #current()} when there is one.
+ */
+public final class EvaluationLog
+{
+	/** Evaluators, as written in the log. */
+	public static final byte SURROGATE = 0;
+	/** A surrogate prediction answered from the prediction cache. */
+	public static final byte CACHED_PREDICTION = 1;
+	public static final byte SIMULATION = 2;
+	/** A fitness function that returned an estimate instead of simulating, e.g. a screened out solution. */
+	public static final byte ESTIMATE = 3;
+	/** A simulation that failed, the energy is {@code NaN}. */
+	public static final byte FAILED = 4;
+
+	/** Marks a claimed slot whose record was dropped, the writer skips it. */
+	private static final byte SKIPPED = -1;
+
+	private static final String[] EVALUATORS = { "surrogate", "cachedPrediction", "simulation", "estimate", "failed" };
+
+	private static final int MAGIC = 0x45564C47; // "EVLG"
+	private static final int FORMAT_VERSION = 1;
+	/** The magic, the format version and the genome length. */
+	private static final int HEADER_SIZE = 12;
+	/** Number of records the ring buffer holds, a power of two. */
+	private static final int CAPACITY = 1 << 16;
+	/** Records per write to the channel. */
+	private static final int BATCH = 1024;
+
+	/** The log evaluations are recorded to, {@code null} when none is open. */
+	private static volatile EvaluationLog current;
+
+	private final FileChannel channel;
+	private final int length;
+	private final int words;
+	private final long origin = System.nanoTime();
+
+	// the ring buffer, one entry per slot
+	private final byte[] evaluator = new byte[CAPACITY];
+	private final long[] time = new long[CAPACITY];
+	private final long[] duration = new long[CAPACITY];
+	private final double[] energy = new double[CAPACITY];
+	private final double[] cost = new double[CAPACITY];
+	private final long[] genomes;
+	/** The sequence number last published in each slot, -1 before the first. */
+	private final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+
+	/** Next sequence number to claim. */
+	private final AtomicLong head = new AtomicLong();
+	/** Next sequence number to write, only advanced by the writer. */
+	private volatile long tail;
+	private final AtomicLong dropped = new AtomicLong();
+	/** Records written to the file, only advanced by the writer. */
+	private long written;
+
+	private volatile boolean closing;
+	private final Thread writer;
+	private final ByteBuffer buffer;
+
+	/**
+	 * Opens a log and starts its writer.
+	 *
+	 * @param file The file to write to, it is overwritten.
+	 * @param genomeLength The number of bits per genome.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public EvaluationLog(File file, int genomeLength) throws IOException
+	{
+		this.length = genomeLength;
+		this.words = (genomeLength + 63) >>> 6;
+		genomes = new long[CAPACITY * words];
+		for (int i = 0; i < CAPACITY; i++)
+			published.set(i, -1);
+
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		// the first batch goes out behind the header
+		buffer = ByteBuffer.allocateDirect(HEADER_SIZE + BATCH * recordSize(words));
+		buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(genomeLength);
+
+		writer = new Thread(this::drain, "evaluation-log");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Opens a log and makes it the one the evaluations are recorded to.
+	 *
+	 * @param file The file to write to, it is overwritten.
+	 * @param genomeLength The number of bits per genome.
+	 * @return The log.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public static EvaluationLog open(File file, int genomeLength) throws IOException
+	{
+		EvaluationLog log = new EvaluationLog(file, genomeLength);
+		current = log;
+		return log;
+	}
+
+	/**
+	 * @return The log evaluations are recorded to, {@code null} if logging is off.
+	 */
+	public static EvaluationLog current()
+	{
+		return current;
+	}
+
+	/**
+	 * Records an evaluation of an unpacked genome.
+	 *
+	 * @param kind The evaluator, one of the constants of this class.
+	 * @param alleles The genome.
+	 * @param nanos How long the evaluation took.
+	 * @param energy The energy found.
+	 * @param cost The cost found.
+	 */
+	public void record(byte kind, boolean[] alleles, long nanos, double energy, double cost)
+	{
+		long seq = claim();
+		if (seq < 0)
+			return;
+		int base = ((int) seq & (CAPACITY - 1)) * words;
+		for (int w = 0; w < words; w++)
+			genomes[base + w] = 0;
+		int bits = Math.min(length, alleles.length);
+		for (int b = 0; b < bits; b++)
+			if (alleles[b])
+				genomes[base + (b >>> 6)] |= 1L << b;
+		publish(seq, kind, nanos, energy, cost);
+	}
+
+	/**
+	 * Records an evaluation of a packed genome.
+	 *
+	 * @param kind The evaluator, one of the constants of this class.
+	 * @param packed The packed genomes, as held by {@code Optimisation.Population}.
+	 * @param offset The index of the genome's first word.
+	 * @param nanos How long the evaluation took.
+	 * @param energy The energy found.
+	 * @param cost The cost found.
+	 */
+	public void record(byte kind, long[] packed, int offset, long nanos, double energy, double cost)
+	{
+		long seq = claim();
+		if (seq < 0)
+			return;
+		System.arraycopy(packed, offset, genomes, ((int) seq & (CAPACITY - 1)) * words, words);
+		publish(seq, kind, nanos, energy, cost);
+	}
+
+	/**
+	 * Claims the next slot of the ring buffer.
+	 *
+	 * @return The sequence number of the record, its slot is the sequence number modulo the capacity; -1 if the
+	 *         buffer is full or the log is closing, and the record is dropped.
+	 */
+	private long claim()
+	{
+		long seq;
+		do
+		{
+			seq = head.get();
+			if (seq - tail >= CAPACITY || closing)
+			{
+				dropped.incrementAndGet();
+				return -1;
+			}
+		}
+		while (!head.compareAndSet(seq, seq + 1));
+
+		// closed since the check above, the writer may have finished already: give the slot up rather than lose
+		// the record uncounted, publishing it so that a writer still running does not wait for it
+		if (closing)
+		{
+			dropped.incrementAndGet();
+			publish(seq, SKIPPED, 0, Double.NaN, Double.NaN);
+			return -1;
+		}
+		return seq;
+	}
+
+	private void publish(long seq, byte kind, long nanos, double energy, double cost)
+	{
+		int slot = (int) seq & (CAPACITY - 1);
+		this.evaluator[slot] = kind;
+		this.time[slot] = System.nanoTime() - origin;
+		this.duration[slot] = nanos;
+		this.energy[slot] = energy;
+		this.cost[slot] = cost;
+		// the ordered store makes the fields above visible to the writer before the slot is seen as published
+		published.lazySet(slot, seq);
+	}
+
+	/**
+	 * Writer loop: appends the published records in order until the log is closed and drained.
+	 */
+	private void drain()
+	{
+		try
+		{
+			while (true)
+			{
+				boolean finishing = closing;
+				long t = tail;
+				int n = 0;
+				while (n < BATCH && published.get((int) (t + n) & (CAPACITY - 1)) == t + n)
+					n++;
+
+				if (n > 0)
+				{
+					for (int k = 0; k < n; k++)
+					{
+						int slot = (int) (t + k) & (CAPACITY - 1);
+						if (evaluator[slot] != SKIPPED)
+						{
+							put(slot);
+							written++;
+						}
+					}
+					tail = t + n;
+					flush();
+				}
+				else if (finishing && t == head.get())
+				{
+					break;
+				}
+				else
+				{
+					LockSupport.parkNanos(1_000_000);
+				}
+			}
+			flush();
+			channel.force(false);
+			channel.close();
+		}
+		catch (IOException e)
+		{
+			System.err.println("evaluation log failed: " + e.getMessage());
+			closing = true;
+		}
+	}
+
+	private void put(int slot)
+	{
+		buffer.put(evaluator[slot]);
+		buffer.putLong(time[slot]);
+		buffer.putLong(duration[slot]);
+		buffer.putDouble(energy[slot]);
+		buffer.putDouble(cost[slot]);
+		int base = slot * words;
+		for (int w = 0; w < words; w++)
+			buffer.putLong(genomes[base + w]);
+	}
+
+	private void flush() throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the records still in the buffer, closes the file and stops recording to this log.
+	 */
+	public void close()
+	{
+		if (current == this)
+			current = null;
+		closing = true;
+		try
+		{
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		System.out.println("evaluation log: " + written + " records written, " + dropped.get() + " dropped");
+	}
+
+	/**
+	 * @return The number of records dropped because the writer was a whole buffer behind.
+	 */
+	public long getDropped()
+	{
+		return dropped.get();
+	}
+
+	private static int recordSize(int words)
+	{
+		return 1 + 8 + 8 + 8 + 8 + 8 * words;
+	}
+
+	/**
+	 * Converts a log to CSV: {@code timeMs,evaluator,durationMs,energy,cost,genome} with the genome as
+	 * hexadecimal, window 1 being the most significant bit of the first digit as in the front reports.
+	 *
+	 * @param args The log file, and optionally the CSV file (standard output otherwise).
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length < 1)
+		{
+			System.err.println("usage: EvaluationLog <log> [csv]");
+			return;
+		}
+
+		// standard output is left open
+		PrintStream out = System.out;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args[0]))))
+		{
+			if (args.length > 1)
+				out = new PrintStream(args[1]);
+			if (in.readInt() != MAGIC)
+				throw new IOException(args[0] + " is not an evaluation log");
+			int version = in.readInt();
+			if (version != FORMAT_VERSION)
+				throw new IOException("unsupported evaluation log version " + version);
+			int length = in.readInt();
+			long[] genome = new long[(length + 63) >>> 6];
+
+			out.println("timeMs,evaluator,durationMs,energy,cost,genome");
+			while (true)
+			{
+				int kind;
+				try
+				{
+					kind = in.readByte();
+				}
+				catch (EOFException e)
+				{
+					break;
+				}
+				long t = in.readLong();
+				long d = in.readLong();
+				double e = in.readDouble();
+				double c = in.readDouble();
+				for (int w = 0; w < genome.length; w++)
+					genome[w] = in.readLong();
+
+				out.println(String.format(Locale.ROOT, "%.3f,%s,%.3f,", t / 1e6,
+						kind >= 0 && kind < EVALUATORS.length ? EVALUATORS[kind] : Integer.toString(kind), d / 1e6)
+						+ e + "," + c + "," + toHex(genome, length));
+			}
+			out.flush();
+		}
+		catch (FileNotFoundException e)
+		{
+			System.err.println("could not open " + e.getMessage());
+		}
+		catch (IOException e)
+		{
+			System.err.println("could not read the evaluation log: " + e.getMessage());
+		}
+		finally
+		{
+			if (out != System.out)
+				out.close();
+		}
+	}
+
+	private static String toHex(long[] genome, int length)
+	{
+		StringBuilder sb = new StringBuilder((length + 3) / 4);
+		for (int i = 0; i < length; i += 4)
+		{
+			int digit = 0;
+			for (int b = 0; b < 4; b++)
+			{
+				int bit = i + b;
+				digit = (digit << 1) | (bit < length && (genome[bit >>> 6] & (1L << bit)) != 0 ? 1 : 0);
+			}
+			sb.append(Character.forDigit(digit, 16));
+		}
+		return sb.toString();
+	}
+}
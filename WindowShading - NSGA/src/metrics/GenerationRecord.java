@@ -0,0 +1,212 @@
+package metrics;
+
+import java.util.Locale;
+
+/**
+ * Immutable measurements of a single generation of the optimiser.
+ */
+public final class GenerationRecord
+{
+	private final int generation;
+	private final long[] phaseNanos;
+	private final int frontSize;
+	private final double hypervolume;
+	private final long cacheHits;
+	private final long cacheMisses;
+	private final long predictCacheHits;
+	private final LatencyHistogram.Snapshot predict;
+	private final LatencyHistogram.Snapshot launch;
+	private final LatencyHistogram.Snapshot simulation;
+	private final LatencyHistogram.Snapshot parse;
+	private final long outputBytes;
+	private final long simulationFailures;
+
+	GenerationRecord(int generation, long[] phaseNanos, int frontSize, double hypervolume,
+			long cacheHits, long cacheMisses, long predictCacheHits, LatencyHistogram.Snapshot predict,
+			LatencyHistogram.Snapshot launch, LatencyHistogram.Snapshot simulation,
+			LatencyHistogram.Snapshot parse, long outputBytes, long simulationFailures)
+	{
+		this.generation = generation;
+		this.phaseNanos = phaseNanos;
+		this.frontSize = frontSize;
+		this.hypervolume = hypervolume;
+		this.cacheHits = cacheHits;
+		this.cacheMisses = cacheMisses;
+		this.predictCacheHits = predictCacheHits;
+		this.predict = predict;
+		this.launch = launch;
+		this.simulation = simulation;
+		this.parse = parse;
+		this.outputBytes = outputBytes;
+		this.simulationFailures = simulationFailures;
+	}
+
+	public int getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * @param phase The phase of the generation loop.
+	 * @return The wall time spent in the phase, in milliseconds.
+	 */
+	public double getPhaseMillis(MetricsRecorder.Phase phase)
+	{
+		return phaseNanos[phase.ordinal()] / 1e6;
+	}
+
+	public int getFrontSize()
+	{
+		return frontSize;
+	}
+
+	public double getHypervolume()
+	{
+		return hypervolume;
+	}
+
+	public long getCacheHits()
+	{
+		return cacheHits;
+	}
+
+	public long getCacheMisses()
+	{
+		return cacheMisses;
+	}
+
+	/**
+	 * @return The fraction of memory lookups that were hits, 0 if there were none.
+	 */
+	public double getCacheHitRate()
+	{
+		long lookups = cacheHits + cacheMisses;
+		return lookups == 0 ? 0 : (double) cacheHits / lookups;
+	}
+
+	/**
+	 * @return The surrogate predictions answered from the prediction cache; the model itself was only asked
+	 *         {@code getPredict().getCount()} times.
+	 */
+	public long getPredictCacheHits()
+	{
+		return predictCacheHits;
+	}
+
+	public LatencyHistogram.Snapshot getPredict()
+	{
+		return predict;
+	}
+
+	public LatencyHistogram.Snapshot getLaunch()
+	{
+		return launch;
+	}
+
+	public LatencyHistogram.Snapshot getSimulation()
+	{
+		return simulation;
+	}
+
+	public LatencyHistogram.Snapshot getParse()
+	{
+		return parse;
+	}
+
+	/**
+	 * @return The bytes the simulations of the generation left in their directories.
+	 */
+	public long getOutputBytes()
+	{
+		return outputBytes;
+	}
+
+	/**
+	 * @return The simulation attempts of the generation that failed, retried ones included.
+	 */
+	public long getSimulationFailures()
+	{
+		return simulationFailures;
+	}
+
+	/**
+	 * @return The column names matching {@link #toCsv()}.
+	 */
+	public static String csvHeader()
+	{
+		StringBuilder sb = new StringBuilder("generation");
+		for (MetricsRecorder.Phase p : MetricsRecorder.Phase.values())
+			sb.append(',').append(p.label()).append("Ms");
+		sb.append(",frontSize,hypervolume,cacheHits,cacheMisses,cacheHitRate");
+		sb.append(",predictCacheHits,predictCount,predictMeanMs,predictP50Ms,predictP99Ms");
+		sb.append(",launchMeanMs,simulationMeanMs,parseMeanMs,simulations,outputBytes,simulationFailures");
+		return sb.toString();
+	}
+
+	/**
+	 * @return The record as one CSV row.
+	 */
+	public String toCsv()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(generation);
+		for (MetricsRecorder.Phase p : MetricsRecorder.Phase.values())
+			sb.append(',').append(format(getPhaseMillis(p)));
+		sb.append(',').append(frontSize);
+		sb.append(',').append(format(hypervolume));
+		sb.append(',').append(cacheHits);
+		sb.append(',').append(cacheMisses);
+		sb.append(',').append(format(getCacheHitRate()));
+		sb.append(',').append(predictCacheHits);
+		sb.append(',').append(predict.getCount());
+		sb.append(',').append(format(predict.getMeanMillis()));
+		sb.append(',').append(format(predict.getQuantileMillis(0.5)));
+		sb.append(',').append(format(predict.getQuantileMillis(0.99)));
+		sb.append(',').append(format(launch.getMeanMillis()));
+		sb.append(',').append(format(simulation.getMeanMillis()));
+		sb.append(',').append(format(parse.getMeanMillis()));
+		sb.append(',').append(simulation.getCount());
+		sb.append(',').append(outputBytes);
+		sb.append(',').append(simulationFailures);
+		return sb.toString();
+	}
+
+	/**
+	 * @return The record as a single line JSON object.
+	 */
+	public String toJson()
+	{
+		StringBuilder sb = new StringBuilder("{");
+		sb.append("\"generation\":").append(generation);
+		for (MetricsRecorder.Phase p : MetricsRecorder.Phase.values())
+			sb.append(",\"").append(p.label()).append("Ms\":").append(format(getPhaseMillis(p)));
+		sb.append(",\"frontSize\":").append(frontSize);
+		sb.append(",\"hypervolume\":").append(format(hypervolume));
+		sb.append(",\"cacheHits\":").append(cacheHits);
+		sb.append(",\"cacheMisses\":").append(cacheMisses);
+		sb.append(",\"predictCacheHits\":").append(predictCacheHits);
+		sb.append(",\"predict\":").append(json(predict));
+		sb.append(",\"launch\":").append(json(launch));
+		sb.append(",\"simulation\":").append(json(simulation));
+		sb.append(",\"parse\":").append(json(parse));
+		sb.append(",\"outputBytes\":").append(outputBytes);
+		sb.append(",\"simulationFailures\":").append(simulationFailures);
+		sb.append('}');
+		return sb.toString();
+	}
+
+	private static String json(LatencyHistogram.Snapshot s)
+	{
+		return "{\"count\":" + s.getCount()
+				+ ",\"meanMs\":" + format(s.getMeanMillis())
+				+ ",\"p50Ms\":" + format(s.getQuantileMillis(0.5))
+				+ ",\"p99Ms\":" + format(s.getQuantileMillis(0.99)) + "}";
+	}
+
+	private static String format(double d)
+	{
+		if (Double.isNaN(d) || Double.isInfinite(d))
+			return "null";
+		return String.format(Locale.ROOT, "%.4f", d);
+	}
+}
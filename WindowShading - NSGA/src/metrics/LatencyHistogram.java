@@ -0,0 +1,134 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with one bucket per power of two nanoseconds. Recording is a couple of atomic
+ * increments, so it can be called from every evaluation thread without contention worth measuring.
+ */
+public class LatencyHistogram
+{
+	/** Bucket {@code b} counts latencies in [2^b, 2^(b+1)) nanoseconds. */
+	private static final int BUCKETS = 64;
+
+	private final String name;
+	private final AtomicLongArray counts;
+	private final AtomicLongArray totals;
+
+	/**
+	 * Constructor for an empty histogram.
+	 * 
+	 * @param name The name the histogram is exported under.
+	 */
+	public LatencyHistogram(String name)
+	{
+		this.name = name;
+		this.counts = new AtomicLongArray(BUCKETS);
+		this.totals = new AtomicLongArray(BUCKETS);
+	}
+
+	/**
+	 * Records a single latency.
+	 * 
+	 * @param nanos The latency in nanoseconds.
+	 */
+	public void record(long nanos)
+	{
+		int bucket = 63 - Long.numberOfLeadingZeros(Math.max(1, nanos));
+		counts.incrementAndGet(bucket);
+		totals.addAndGet(bucket, nanos);
+	}
+
+	/**
+	 * Copies the counts recorded since the last call and clears them.
+	 * 
+	 * @return The recorded latencies.
+	 */
+	public Snapshot drain()
+	{
+		long[] c = new long[BUCKETS];
+		long total = 0;
+		for (int b = 0; b < BUCKETS; b++)
+		{
+			c[b] = counts.getAndSet(b, 0);
+			total += totals.getAndSet(b, 0);
+		}
+		return new Snapshot(name, c, total);
+	}
+
+	/**
+	 * Accessor method for the histogram's name.
+	 * 
+	 * @return The name.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * An immutable copy of a histogram's buckets.
+	 */
+	public static final class Snapshot
+	{
+		private final String name;
+		private final long[] counts;
+		private final long count;
+		private final long totalNanos;
+
+		private Snapshot(String name, long[] counts, long totalNanos)
+		{
+			long n = 0;
+			for (long c : counts)
+				n += c;
+			this.name = name;
+			this.counts = counts;
+			this.count = n;
+			this.totalNanos = totalNanos;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public long getCount()
+		{
+			return count;
+		}
+
+		public long getTotalNanos()
+		{
+			return totalNanos;
+		}
+
+		/**
+		 * @return The mean latency in milliseconds, 0 if nothing was recorded.
+		 */
+		public double getMeanMillis()
+		{
+			return count == 0 ? 0 : totalNanos / 1e6 / count;
+		}
+
+		/**
+		 * Upper bound of the bucket holding the given quantile.
+		 * 
+		 * @param q The quantile, between 0 and 1.
+		 * @return The latency in milliseconds, 0 if nothing was recorded.
+		 */
+		public double getQuantileMillis(double q)
+		{
+			if (count == 0)
+				return 0;
+			long target = (long) Math.ceil(q * count);
+			long seen = 0;
+			for (int b = 0; b < counts.length; b++)
+			{
+				seen += counts[b];
+				if (seen >= Math.max(1, target))
+					return Math.pow(2, b + 1) / 1e6;
+			}
+			return Math.pow(2, counts.length) / 1e6;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide probes written to from the evaluation paths. They are static so the surrogate model and the
+ * EnergyPlus wrapper can record without being handed a recorder, the same way evaluations are counted in
+ * {@code WindowShadingProblem}.
+ */
+public final class Metrics
+{
+	/** Latency of a single surrogate prediction. */
+	public static final LatencyHistogram SURROGATE_PREDICT = new LatencyHistogram("surrogatePredict");
+	/** Surrogate predictions answered from the prediction cache instead of the model. */
+	public static final AtomicLong PREDICTION_CACHE_HITS = new AtomicLong();
+	/** Surrogate predictions outside the plausible range, clamped or replaced by the fallback. */
+	public static final AtomicLong SURROGATE_OUT_OF_RANGE = new AtomicLong();
+	/** Surrogate predictions that came out NaN. */
+	public static final AtomicLong SURROGATE_NAN = new AtomicLong();
+	/** Attempts at a surrogate prediction that threw. */
+	public static final AtomicLong SURROGATE_ERRORS = new AtomicLong();
+	/** Surrogate predictions answered by the fallback model. */
+	public static final AtomicLong SURROGATE_FALLBACKS = new AtomicLong();
+	/** Surrogate predictions that took longer than the latency ceiling. */
+	public static final AtomicLong SURROGATE_OVER_CEILING = new AtomicLong();
+	/** Time to start the EnergyPlus process. */
+	public static final LatencyHistogram ENERGYPLUS_LAUNCH = new LatencyHistogram("energyPlusLaunch");
+	/** Time from launch until the EnergyPlus process exits. */
+	public static final LatencyHistogram ENERGYPLUS_SIMULATION = new LatencyHistogram("energyPlusSimulation");
+	/** Time to parse the EnergyPlus output file. */
+	public static final LatencyHistogram ENERGYPLUS_PARSE = new LatencyHistogram("energyPlusParse");
+
+	/** Bytes left in the simulation directories by EnergyPlus, measured before they are deleted. */
+	public static final AtomicLong ENERGYPLUS_OUTPUT_BYTES = new AtomicLong();
+
+	/** Simulation attempts that failed, whether or not they were retried. */
+	public static final AtomicLong SIMULATION_FAILURES = new AtomicLong();
+	/** Simulations run again after a transient failure. */
+	public static final AtomicLong SIMULATION_RETRIES = new AtomicLong();
+	/** Evaluations refused because the solution had failed repeatedly and was quarantined. */
+	public static final AtomicLong SIMULATIONS_QUARANTINED = new AtomicLong();
+
+	/** Evaluations answered from the WindowShadingProblem memory. */
+	public static final AtomicLong CACHE_HITS = new AtomicLong();
+	/** Evaluations that had to be simulated although the memory was on. */
+	public static final AtomicLong CACHE_MISSES = new AtomicLong();
+
+	private Metrics()
+	{
+	}
+}
@@ -0,0 +1,152 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects the measurements of one optimisation run generation by generation. Phase timings are accumulated by
+ * the generation loop; the evaluation probes in {@link Metrics} are drained at the end of every generation.
+ * Each completed generation is written to the optional {@link MetricsWriter} and published through JMX.
+ */
+public class MetricsRecorder
+{
+	/** The timed phases of a generation. */
+	public enum Phase
+	{
+		SORT("nonDominatedSort"), CROWDING("crowdingDistance"), OFFSPRING("createOffspring"), EVALUATION("evaluatePopulation");
+
+		private final String label;
+
+		Phase(String label)
+		{
+			this.label = label;
+		}
+
+		/**
+		 * @return The name the phase is exported under.
+		 */
+		public String label()
+		{
+			return label;
+		}
+	}
+
+	/** Used to give concurrent runs distinct MBean names. */
+	private static final AtomicInteger RUNS = new AtomicInteger();
+
+	private final long[] phaseNanos = new long[Phase.values().length];
+	private final OptimiserMetrics mbean = new OptimiserMetrics();
+	private ObjectName objectName;
+	private MetricsWriter writer;
+	private int generation;
+	private long lastHits;
+	private long lastMisses;
+	private long lastOutputBytes;
+	private long lastPredictionHits;
+	private long lastFailures;
+
+	/**
+	 * Constructor for a recorder; registers its MBean with the platform MBean server.
+	 */
+	public MetricsRecorder()
+	{
+		lastHits = Metrics.CACHE_HITS.get();
+		lastMisses = Metrics.CACHE_MISSES.get();
+		lastOutputBytes = Metrics.ENERGYPLUS_OUTPUT_BYTES.get();
+		lastPredictionHits = Metrics.PREDICTION_CACHE_HITS.get();
+		lastFailures = Metrics.SIMULATION_FAILURES.get();
+
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			objectName = new ObjectName("Optimisation:type=NSGA2_E,run=" + RUNS.getAndIncrement());
+			server.registerMBean(mbean, objectName);
+		}
+		catch (Exception e)
+		{
+			System.err.println("could not register metrics MBean: " + e.getMessage());
+			objectName = null;
+		}
+	}
+
+	/**
+	 * Mutator method for the stream the generation records are written to.
+	 * 
+	 * @param writer The writer, or {@code null} to not write records.
+	 */
+	public void setWriter(MetricsWriter writer)
+	{
+		this.writer = writer;
+	}
+
+	/**
+	 * Adds wall time to a phase of the current generation.
+	 * 
+	 * @param phase The phase.
+	 * @param nanos The time spent, in nanoseconds.
+	 */
+	public void addPhase(Phase phase, long nanos)
+	{
+		phaseNanos[phase.ordinal()] += nanos;
+	}
+
+	/**
+	 * Closes the current generation.
+	 * 
+	 * @param frontSize The number of rank 0 individuals in the population.
+	 * @param hypervolume The hypervolume of the population.
+	 * @return The record of the generation.
+	 */
+	public GenerationRecord endGeneration(int frontSize, double hypervolume)
+	{
+		long hits = Metrics.CACHE_HITS.get();
+		long misses = Metrics.CACHE_MISSES.get();
+		long outputBytes = Metrics.ENERGYPLUS_OUTPUT_BYTES.get();
+		long predictionHits = Metrics.PREDICTION_CACHE_HITS.get();
+		long failures = Metrics.SIMULATION_FAILURES.get();
+
+		GenerationRecord record = new GenerationRecord(generation++, phaseNanos.clone(), frontSize,
+				hypervolume, hits - lastHits, misses - lastMisses,
+				predictionHits - lastPredictionHits, Metrics.SURROGATE_PREDICT.drain(), Metrics.ENERGYPLUS_LAUNCH.drain(),
+				Metrics.ENERGYPLUS_SIMULATION.drain(), Metrics.ENERGYPLUS_PARSE.drain(),
+				outputBytes - lastOutputBytes, failures - lastFailures);
+
+		lastHits = hits;
+		lastMisses = misses;
+		lastOutputBytes = outputBytes;
+		lastPredictionHits = predictionHits;
+		lastFailures = failures;
+		Arrays.fill(phaseNanos, 0);
+
+		mbean.publish(record);
+		if (writer != null)
+			writer.write(record);
+
+		return record;
+	}
+
+	/**
+	 * Closes the writer and unregisters the MBean.
+	 */
+	public void close()
+	{
+		if (writer != null)
+			writer.close();
+
+		if (objectName != null)
+		{
+			try
+			{
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			}
+			catch (Exception e)
+			{
+				System.err.println("could not unregister metrics MBean: " + e.getMessage());
+			}
+		}
+	}
+}
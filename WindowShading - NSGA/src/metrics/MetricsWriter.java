@@ -0,0 +1,85 @@
+package metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Appends generation records to a file, either as CSV or as JSON lines.
+ */
+public class MetricsWriter
+{
+	/** Output formats. */
+	public enum Format
+	{
+		CSV, JSON_LINES
+	}
+
+	private final BufferedWriter out;
+	private final Format format;
+
+	/**
+	 * Opens the output file. The format is taken from the extension: {@code .csv} for CSV, anything else for JSON lines.
+	 * 
+	 * @param file The file to write to, it is overwritten.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public MetricsWriter(File file) throws IOException
+	{
+		this(file, file.getName().toLowerCase().endsWith(".csv") ? Format.CSV : Format.JSON_LINES);
+	}
+
+	/**
+	 * Opens the output file.
+	 * 
+	 * @param file The file to write to, it is overwritten.
+	 * @param format The format to write in.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public MetricsWriter(File file, Format format) throws IOException
+	{
+		this.out = new BufferedWriter(new FileWriter(file));
+		this.format = format;
+
+		if (format == Format.CSV)
+		{
+			out.write(GenerationRecord.csvHeader());
+			out.newLine();
+		}
+	}
+
+	/**
+	 * Writes a record. Every record is flushed so a run can be followed while it goes.
+	 * 
+	 * @param record The record to write.
+	 */
+	public void write(GenerationRecord record)
+	{
+		try
+		{
+			out.write(format == Format.CSV ? record.toCsv() : record.toJson());
+			out.newLine();
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			System.err.println("could not write metrics: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Closes the output file.
+	 */
+	public void close()
+	{
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
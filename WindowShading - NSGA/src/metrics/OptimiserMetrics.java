@@ -0,0 +1,145 @@
+package metrics;
+
+import metrics.MetricsRecorder.Phase;
+
+/**
+ * MBean publishing the latest generation record.
+ */
+public class OptimiserMetrics implements OptimiserMetricsMBean
+{
+	/** The last published record, {@code null} until the first generation completes. */
+	private volatile GenerationRecord last;
+
+	void publish(GenerationRecord record)
+	{
+		this.last = record;
+	}
+
+	@Override
+	public int getGeneration()
+	{
+		GenerationRecord r = last;
+		return r == null ? -1 : r.getGeneration();
+	}
+
+	@Override
+	public double getSortMillis()
+	{
+		return phase(Phase.SORT);
+	}
+
+	@Override
+	public double getCrowdingMillis()
+	{
+		return phase(Phase.CROWDING);
+	}
+
+	@Override
+	public double getOffspringMillis()
+	{
+		return phase(Phase.OFFSPRING);
+	}
+
+	@Override
+	public double getEvaluationMillis()
+	{
+		return phase(Phase.EVALUATION);
+	}
+
+	@Override
+	public int getFrontSize()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getFrontSize();
+	}
+
+	@Override
+	public double getHypervolume()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getHypervolume();
+	}
+
+	@Override
+	public double getCacheHitRate()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getCacheHitRate();
+	}
+
+	@Override
+	public long getSurrogatePredictions()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getPredict().getCount();
+	}
+
+	@Override
+	public long getPredictionCacheHits()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getPredictCacheHits();
+	}
+
+	@Override
+	public double getSurrogatePredictMeanMillis()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getPredict().getMeanMillis();
+	}
+
+	@Override
+	public double getSurrogatePredictP99Millis()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getPredict().getQuantileMillis(0.99);
+	}
+
+	@Override
+	public long getSimulations()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getSimulation().getCount();
+	}
+
+	@Override
+	public double getEnergyPlusLaunchMeanMillis()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getLaunch().getMeanMillis();
+	}
+
+	@Override
+	public double getEnergyPlusSimulationMeanMillis()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getSimulation().getMeanMillis();
+	}
+
+	@Override
+	public double getEnergyPlusParseMeanMillis()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getParse().getMeanMillis();
+	}
+
+	@Override
+	public long getEnergyPlusOutputBytes()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getOutputBytes();
+	}
+
+	@Override
+	public long getSimulationFailures()
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getSimulationFailures();
+	}
+
+	private double phase(Phase p)
+	{
+		GenerationRecord r = last;
+		return r == null ? 0 : r.getPhaseMillis(p);
+	}
+}
@@ -0,0 +1,43 @@
+package metrics;
+
+/**
+ * JMX view of the last completed generation of a run.
+ */
+public interface OptimiserMetricsMBean
+{
+	int getGeneration();
+
+	double getSortMillis();
+
+	double getCrowdingMillis();
+
+	double getOffspringMillis();
+
+	double getEvaluationMillis();
+
+	int getFrontSize();
+
+	double getHypervolume();
+
+	double getCacheHitRate();
+
+	long getSurrogatePredictions();
+
+	long getPredictionCacheHits();
+
+	double getSurrogatePredictMeanMillis();
+
+	double getSurrogatePredictP99Millis();
+
+	long getSimulations();
+
+	double getEnergyPlusLaunchMeanMillis();
+
+	double getEnergyPlusSimulationMeanMillis();
+
+	double getEnergyPlusParseMeanMillis();
+
+	long getEnergyPlusOutputBytes();
+
+	long getSimulationFailures();
+}
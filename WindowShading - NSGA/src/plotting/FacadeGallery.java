@@ -0,0 +1,228 @@
+package plotting;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+
+import Optimisation.Individual;
+import WindowShading.FacadeGeometry;
+
+/**
+ * Draws the facades of a whole front into one tiled image, straight from the genome bits.
+ * The image is 8 bit indexed and written through its raster, so a front of any size is a single allocation
+ * bounded by {@link #MAX_PIXELS}, and rendering never touches the event dispatch thread. Without a display the
+ * captions are left out, as drawing text needs the platform's fonts.
+ */
+public class FacadeGallery
+{
+	/** Upper bound on the size of the gallery image, one byte per pixel. */
+	private static final int MAX_PIXELS = 16 * 1024 * 1024;
+	/** Preferred size of a window cell in pixels. */
+	private static final int CELL = 8;
+	/** Smallest cell size before the gallery starts dropping facades. */
+	private static final int MIN_CELL = 2;
+	/** Gap around every tile. */
+	private static final int PAD = 6;
+	/** Height of the energy / cost caption under every tile. */
+	private static final int CAPTION = 12;
+	/** Width the gallery aims for, in pixels. */
+	private static final int TARGET_WIDTH = 1200;
+
+	// palette indices, a new image starts out filled with 0, the background
+	private static final byte WALL = 1;
+	private static final byte WINDOW = 2;
+	private static final byte GRID = 3;
+	private static final IndexColorModel PALETTE = new IndexColorModel(8, 4,
+			new byte[]{(byte) 255, (byte) 255, (byte) 128, 0},
+			new byte[]{(byte) 255, (byte) 255, (byte) 128, 0},
+			new byte[]{(byte) 255, (byte) 255, (byte) 128, 0});
+
+	/** Number of windows per floor. */
+	private final int columns;
+	/** Number of floors. */
+	private final int rows;
+
+	/**
+	 * Constructor for the gallery.
+	 *
+	 * @param geometry The facade the genomes describe.
+	 */
+	public FacadeGallery(FacadeGeometry geometry)
+	{
+		this.columns = geometry.getColumns();
+		this.rows = geometry.getRows();
+	}
+
+	/**
+	 * Renders the rank 0 individuals of the passed population.
+	 *
+	 * @param population The population.
+	 * @return The gallery image.
+	 */
+	public BufferedImage renderFront(Individual[] population)
+	{
+		int n = 0;
+		for (Individual i : population)
+			if (i.rank == 0)
+				n++;
+
+		Individual[] front = new Individual[n];
+		n = 0;
+		for (Individual i : population)
+			if (i.rank == 0)
+				front[n++] = i;
+
+		return render(front);
+	}
+
+	/**
+	 * Renders the passed facades, one tile each, in the order given.
+	 *
+	 * @param facades The individuals to draw.
+	 * @return The gallery image.
+	 */
+	public BufferedImage render(Individual[] facades)
+	{
+		int count = facades.length;
+
+		// shrink the cells, then drop facades, until the image fits the pixel budget
+		int cell = CELL;
+		int caption = GraphicsEnvironment.isHeadless() ? 0 : CAPTION;
+		long pixels;
+		while (true)
+		{
+			pixels = imagePixels(count, cell, caption);
+			if (pixels <= MAX_PIXELS || (cell == MIN_CELL && count <= 1))
+				break;
+			if (cell > MIN_CELL)
+			{
+				cell--;
+				if (cell < 4)
+					caption = 0;
+			}
+			else
+				count = Math.max(1, count / 2);
+		}
+		if (count < facades.length)
+			System.err.println("gallery shows " + count + " of " + facades.length + " facades, the rest do not fit in "
+					+ MAX_PIXELS + " pixels");
+
+		int tileWidth = columns * cell + 1 + 2 * PAD;
+		int tileHeight = rows * cell + 1 + 2 * PAD + caption;
+		int tilesPerRow = Math.max(1, Math.min(Math.max(count, 1), TARGET_WIDTH / tileWidth));
+		int tileRows = Math.max(1, (count + tilesPerRow - 1) / tilesPerRow);
+
+		int width = tilesPerRow * tileWidth;
+		int height = tileRows * tileHeight;
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, PALETTE);
+		byte[] pixelData = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+		for (int t = 0; t < count; t++)
+		{
+			int x = (t % tilesPerRow) * tileWidth + PAD;
+			int y = (t / tilesPerRow) * tileHeight + PAD;
+			drawFacade(pixelData, width, x, y, cell, facades[t].getAlleles());
+		}
+
+		if (caption > 0)
+		{
+			Graphics2D g = image.createGraphics();
+			g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 9));
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+			g.setColor(Color.BLACK);
+			for (int t = 0; t < count; t++)
+			{
+				int x = (t % tilesPerRow) * tileWidth + PAD;
+				int y = (t / tilesPerRow) * tileHeight + PAD + rows * cell + 1 + caption - 2;
+				g.drawString(Math.round(facades[t].getFitness1()) + " / " + Math.round(facades[t].getFitness2()), x, y);
+			}
+			g.dispose();
+		}
+
+		return image;
+	}
+
+	/**
+	 * Fills the grid of one facade: grid lines first, then every cell inside them.
+	 */
+	private void drawFacade(byte[] pixels, int stride, int x, int y, int cell, boolean[] windows)
+	{
+		int w = columns * cell + 1;
+		int h = rows * cell + 1;
+		for (int py = y; py < y + h; py++)
+			Arrays.fill(pixels, py * stride + x, py * stride + x + w, GRID);
+
+		for (int i = 0, cells = rows * columns; i < cells; i++)
+		{
+			byte colour = windows[i] ? WINDOW : WALL;
+			int cx = x + (i % columns) * cell + 1;
+			int cy = y + (i / columns) * cell + 1;
+			for (int py = cy; py < cy + cell - 1; py++)
+			{
+				int offset = py * stride + cx;
+				Arrays.fill(pixels, offset, offset + cell - 1, colour);
+			}
+		}
+	}
+
+	private long imagePixels(int count, int cell, int caption)
+	{
+		long tileWidth = columns * cell + 1 + 2 * PAD;
+		long tileHeight = rows * cell + 1 + 2 * PAD + caption;
+		long tilesPerRow = Math.max(1, Math.min(Math.max(count, 1), TARGET_WIDTH / tileWidth));
+		long tileRows = Math.max(1, (count + tilesPerRow - 1) / tilesPerRow);
+		return tilesPerRow * tileWidth * tileRows * tileHeight;
+	}
+
+	/**
+	 * Writes a gallery image as a PNG file.
+	 *
+	 * @param image The gallery.
+	 * @param file The file to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static void writePNG(BufferedImage image, File file) throws IOException
+	{
+		ImageIO.write(image, "png", file);
+	}
+
+	/**
+	 * Renders the front on the calling thread and shows it in a scrollable window.
+	 *
+	 * @param population The population to show the rank 0 individuals of.
+	 * @param title The window title.
+	 */
+	public void show(Individual[] population, final String title)
+	{
+		final BufferedImage image = renderFront(population);
+
+		SwingUtilities.invokeLater(new Runnable()
+		{
+			public void run()
+			{
+				JFrame frame = new JFrame(title);
+				frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+				frame.getContentPane().setLayout(new BorderLayout(0, 0));
+				frame.getContentPane().add(new JScrollPane(new JLabel(new ImageIcon(image))), BorderLayout.CENTER);
+				frame.setSize(Math.min(image.getWidth() + 30, 1250), Math.min(image.getHeight() + 50, 800));
+				frame.setVisible(true);
+			}
+		});
+	}
+}
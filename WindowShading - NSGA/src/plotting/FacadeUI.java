@@ -15,6 +15,7 @@ import java.util.Random;
 import javax.swing.border.LineBorder;
 
 import Optimisation.Individual;
+import WindowShading.FacadeGeometry;
 
 import java.awt.Color;
 import javax.swing.SwingConstants;
@@ -31,7 +32,15 @@ public class FacadeUI
 	 */
 	public FacadeUI(Individual i)
 	{
-		initialize(i.getAlleles(), i.getFitness1(), i.getFitness2(), i.hashCode());
+		this(i, FacadeGeometry.DEFAULT);
+	}
+
+	/**
+	 * Create the application for a given facade.
+	 */
+	public FacadeUI(Individual i, FacadeGeometry geometry)
+	{
+		initialize(i.getAlleles(), i.getFitness1(), i.getFitness2(), i.hashCode(), geometry);
 	}
 
 	/**
@@ -40,21 +49,31 @@ public class FacadeUI
 	 * TODO : * add the cost and energy values below the graph
 	 *        * better title
 	 */
-	private void initialize(boolean[] windows, double energy, double cost, int title)
+	private void initialize(boolean[] windows, double energy, double cost, int title, FacadeGeometry geometry)
 	{
+		int columns = geometry.getColumns();
+		int rows = geometry.getRows();
+
 		frame = new JFrame();
 		frame.setTitle("Individual " + title);
-		frame.setBounds(100, 100, 300, 480);
-		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setBounds(100, 100, Math.max(300, 20 * columns + 100), Math.max(480, 25 * rows + 180));
+		frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 		frame.getContentPane().setLayout(new BorderLayout(0, 0));
 		
 		JPanel panelWindows = new JPanel();
 		frame.getContentPane().add(panelWindows, BorderLayout.CENTER);
 		GridBagLayout gbl_panelWindows = new GridBagLayout();
-		gbl_panelWindows.columnWidths = new int[]{0, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 0};
-		gbl_panelWindows.rowHeights = new int[]{0, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 0};
-		gbl_panelWindows.columnWeights = new double[]{1.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 1.0};
-		gbl_panelWindows.rowWeights = new double[]{1.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 1.0};
+		// one column / row per cell, with a stretching margin on either side
+		gbl_panelWindows.columnWidths = new int[columns + 2];
+		gbl_panelWindows.columnWeights = new double[columns + 2];
+		for (int c = 1; c <= columns; c++)
+			gbl_panelWindows.columnWidths[c] = 20;
+		gbl_panelWindows.columnWeights[0] = gbl_panelWindows.columnWeights[columns + 1] = 1.0;
+		gbl_panelWindows.rowHeights = new int[rows + 2];
+		gbl_panelWindows.rowWeights = new double[rows + 2];
+		for (int r = 1; r <= rows; r++)
+			gbl_panelWindows.rowHeights[r] = 25;
+		gbl_panelWindows.rowWeights[0] = gbl_panelWindows.rowWeights[rows + 1] = 1.0;
 		panelWindows.setLayout(gbl_panelWindows);
 		
 		JPanel panelLabels = new JPanel();
@@ -106,19 +125,20 @@ public class FacadeUI
 		
 		
 		
-		JPanel [] lbls = new JPanel[windows.length];
-		GridBagConstraints[] gridbag_constraints = new GridBagConstraints[windows.length];
+		int cells = geometry.getCellCount();
+		JPanel [] lbls = new JPanel[cells];
+		GridBagConstraints[] gridbag_constraints = new GridBagConstraints[cells];
 		
 		int floor = 0;
-		int nextFloor = 10;
+		int nextFloor = columns;
 		int row = 0;
 		
-		for (int i = 0; i < windows.length; i++)
+		for (int i = 0; i < cells; i++)
 		{
 			if (i == nextFloor)
 			{
 				floor++;
-				nextFloor += 10;
+				nextFloor += columns;
 				row = 0;
 			}
 			
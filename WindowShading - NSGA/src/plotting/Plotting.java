@@ -1,51 +1,36 @@
 package plotting;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import Optimisation.Individual;
+import indicators.Hypervolume2D;
 
 public class Plotting
 {
+	/** Reference point energy, well above any energy a layout can reach. */
+	public static final double REFERENCE_ENERGY = 50000;
+	/** Reference point cost, well above the most expensive layout. */
+	public static final double REFERENCE_COST = 100000;
+
 	/**
 	 * This method calculates the hypervolume of the passed population from a set reference point.
-	 * The reference point is set to {100000, 50000}, as those two values are way off the possible values of the energy and cost. 
+	 * The reference point is set to {50000, 100000}, as those two values are way off the possible values of the energy and cost. 
 	 * 
 	 * @param population The population to calculate the hypervolume of.
 	 * @return The calculated hypervolume.
 	 */
 	public static double hypervolume(Individual[] population)
 	{
-		List<Individual> paretoOptimals = new ArrayList<>();
+		double[] energy = new double[population.length];
+		double[] cost = new double[population.length];
+		int n = 0;
 
 		for (Individual i : population)
-			if (i.rank == 0)// save all pareto-optimal points from the population
-				paretoOptimals.add(i);
-
-		double[][] paretoPoints = new double[paretoOptimals.size()][2];
-		for (int i = 0; i < paretoOptimals.size(); i++) 
-		{// save the energy and cost of the pareto-optimal points
-			paretoPoints[i][0] = paretoOptimals.get(i).getFitness1();
-			paretoPoints[i][1] = paretoOptimals.get(i).getFitness2();
-		}
-
-//		for (double[] pp : paretoPoints)
-//		{
-//			for (double p : pp)
-//				System.out.print(p + " ");
-//			System.out.println();
-//		}
-
-		double[] referencePoint = {50000, 100000};
-		double volume = 0;
-		
-		for (int i = 0; i < paretoPoints.length; i++)
-		{
-			volume += ((referencePoint[0] - paretoPoints[i][0])  // calculate the area from the pareto
-					* (referencePoint[1] - paretoPoints[i][1])); // point and the reference point.
-			referencePoint[0] -= referencePoint[0] - paretoPoints[i][0]; // move the reference point.
-		}
-
-		return volume;
+			if (i.rank == 0)
+			{// save the energy and cost of the pareto-optimal points
+				energy[n] = i.getFitness1();
+				cost[n] = i.getFitness2();
+				n++;
+			}
+
+		return Hypervolume2D.compute(energy, cost, n, REFERENCE_ENERGY, REFERENCE_COST);
 	}
-}
\ No newline at end of file
+}
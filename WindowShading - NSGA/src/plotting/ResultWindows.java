@@ -0,0 +1,53 @@
+package plotting;
+
+import Optimisation.Individual;
+import Optimisation.RunObserver;
+import Optimisation.RunSummary;
+import Optimisation.SnapshotMailbox;
+import Optimisation.VisualisePopulation;
+import WindowShading.FacadeGeometry;
+
+/**
+ * Graphical run observer: follows the population live while the run goes, then shows a gallery of the rank 0
+ * facades.
+ */
+public class ResultWindows implements RunObserver
+{
+	/** Highest repaint rate of the live population plot. */
+	private static final int FRAMES_PER_SECOND = 10;
+
+	/** The population plot, opened when the run starts. */
+	private VisualisePopulation vp;
+	/** Generation snapshots published by the optimiser. */
+	private SnapshotMailbox mailbox;
+	/** The facade the genomes describe. */
+	private FacadeGeometry geometry;
+
+	/**
+	 * Constructor for the observer; opens the population plot and starts following the mailbox.
+	 * 
+	 * @param geometry The facade the genomes describe.
+	 */
+	public ResultWindows(FacadeGeometry geometry)
+	{
+		this.geometry = geometry;
+		mailbox = new SnapshotMailbox();
+		vp = new VisualisePopulation();
+		vp.watch(mailbox, FRAMES_PER_SECOND);
+	}
+
+	@Override
+	public SnapshotMailbox liveView()
+	{
+		return mailbox;
+	}
+
+	@Override
+	public void finished(Individual[] population, RunSummary summary)
+	{
+		vp.updatePopulation(population);
+
+		// rendered on the optimiser's thread, only the finished image is handed to the EDT
+		new FacadeGallery(geometry).show(summary.getArchive(), "Pareto front");
+	}
+}
@@ -0,0 +1,282 @@
+package regression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import WindowShading.FacadeGeometry;
+
+/**
+ * Turns a genome into the inputs of the surrogate's network.
+ *
+ * The raw encoding feeds every bit of the genome. The structural encoding describes the layout instead, with far
+ * fewer inputs: the windows on every floor and in every column, the window-to-wall ratio, the number of
+ * horizontally and vertically adjacent window pairs, the number of clusters of connected windows and the size of
+ * the largest, and, when the genome has them, the windows carrying an overhang or a fin. The facade has a single
+ * orientation, so the floor and column counts are the bands the layout is described by.
+ *
+ * The structural features are gathered in one pass over the set window bits of the packed genome, joining every
+ * window to its left and upper neighbours in a union-find to track the clusters.
+ */
+public class FacadeFeatures
+{
+	/** The inputs fed to the network. */
+	public enum Encoding
+	{
+		/** Every bit of the genome. */
+		RAW,
+		/** The structural features only. */
+		STRUCTURAL,
+		/** The bits followed by the structural features. */
+		BOTH
+	}
+
+	private final FacadeGeometry geometry;
+	private final Encoding encoding;
+	private final int rows;
+	private final int columns;
+	private final int cells;
+	private final int length;
+	private final int words;
+	/** Number of structural features. */
+	private final int structural;
+
+	/**
+	 * Constructor for the features of a facade.
+	 *
+	 * @param geometry The facade the genomes describe.
+	 * @param encoding The inputs to produce.
+	 */
+	public FacadeFeatures(FacadeGeometry geometry, Encoding encoding)
+	{
+		this.geometry = geometry;
+		this.encoding = encoding;
+		this.rows = geometry.getRows();
+		this.columns = geometry.getColumns();
+		this.cells = geometry.getCellCount();
+		this.length = geometry.getGenomeLength();
+		this.words = (length + 63) >>> 6;
+		this.structural = rows + columns + 5 + (geometry.hasOverhangs() ? 1 : 0) + (geometry.hasFins() ? 1 : 0);
+	}
+
+	public Encoding getEncoding()
+	{
+		return encoding;
+	}
+
+	/**
+	 * @return The number of inputs.
+	 */
+	public int size()
+	{
+		switch (encoding)
+		{
+			case RAW:
+				return length;
+			case STRUCTURAL:
+				return structural;
+			default:
+				return length + structural;
+		}
+	}
+
+	/**
+	 * @return The names of the inputs, in order.
+	 */
+	public List<String> names()
+	{
+		List<String> names = new ArrayList<>(size());
+		if (encoding != Encoding.STRUCTURAL)
+			for (int i = 1; i <= length; i++)
+				names.add("W" + i);
+		if (encoding != Encoding.RAW)
+		{
+			for (int r = 1; r <= rows; r++)
+				names.add("Floor" + r);
+			for (int c = 1; c <= columns; c++)
+				names.add("Column" + c);
+			names.add("WindowToWall");
+			names.add("HorizontalPairs");
+			names.add("VerticalPairs");
+			names.add("Clusters");
+			names.add("LargestCluster");
+			if (geometry.hasOverhangs())
+				names.add("Overhangs");
+			if (geometry.hasFins())
+				names.add("Fins");
+		}
+		return names;
+	}
+
+	/**
+	 * Packs a genome the way {@link #extract(long[], int, double[])} reads it.
+	 *
+	 * @param genome The genome.
+	 * @return The packed genome.
+	 */
+	public long[] pack(boolean[] genome)
+	{
+		long[] packed = new long[words];
+		for (int b = 0; b < length; b++)
+			if (genome[b])
+				packed[b >>> 6] |= 1L << b;
+		return packed;
+	}
+
+	/**
+	 * Unpacks a genome.
+	 *
+	 * @param packed The packed genomes.
+	 * @param offset The index of the genome's first word.
+	 * @return The genome.
+	 */
+	public boolean[] unpack(long[] packed, int offset)
+	{
+		boolean[] genome = new boolean[length];
+		for (int b = 0; b < length; b++)
+			genome[b] = isSet(packed, offset, b);
+		return genome;
+	}
+
+	/**
+	 * Computes the inputs of a genome held as a row of the training data.
+	 *
+	 * @param row The genome's bits as 0 or 1, possibly followed by other values.
+	 * @param out Receives the inputs from index 0; any further entries are left alone.
+	 */
+	public void extract(double[] row, double[] out)
+	{
+		long[] packed = new long[words];
+		for (int b = 0; b < length; b++)
+			if (row[b] != 0)
+				packed[b >>> 6] |= 1L << b;
+		extract(packed, 0, out);
+	}
+
+	/**
+	 * Computes the inputs of a packed genome, bit {@code i} of the genome being bit {@code i % 64} of long
+	 * {@code offset + i / 64}.
+	 *
+	 * @param packed The packed genomes.
+	 * @param offset The index of the genome's first word.
+	 * @param out Receives the inputs from index 0; any further entries are left alone.
+	 */
+	public void extract(long[] packed, int offset, double[] out)
+	{
+		int k = 0;
+		if (encoding != Encoding.STRUCTURAL)
+		{
+			for (int b = 0; b < length; b++)
+				out[k++] = (packed[offset + (b >>> 6)] >>> b & 1L) != 0 ? 1 : 0;
+		}
+		if (encoding != Encoding.RAW)
+			structural(packed, offset, out, k);
+	}
+
+	private void structural(long[] packed, int offset, double[] out, int k)
+	{
+		int floor = k;
+		int column = floor + rows;
+		int totals = column + columns;
+		for (int i = floor; i < totals; i++)
+			out[i] = 0;
+
+		int overhangOffset = geometry.getOverhangOffset();
+		int finOffset = geometry.getFinOffset();
+		int windows = 0;
+		int horizontal = 0;
+		int vertical = 0;
+		int overhangs = 0;
+		int fins = 0;
+		int[] parent = new int[cells];
+		int[] size = new int[cells];
+
+		// visit the set window bits only, word by word
+		int lastWord = (cells - 1) >>> 6;
+		for (int w = 0; w <= lastWord; w++)
+		{
+			long bits = packed[offset + w];
+			if (w == lastWord && (cells & 63) != 0)
+				bits &= (1L << cells) - 1;
+			while (bits != 0)
+			{
+				int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+
+				int r = i / columns;
+				int c = i - r * columns;
+				windows++;
+				out[floor + r]++;
+				out[column + c]++;
+				parent[i] = i;
+				size[i] = 1;
+				if (c > 0 && isSet(packed, offset, i - 1))
+				{
+					horizontal++;
+					union(parent, size, i, i - 1);
+				}
+				if (r > 0 && isSet(packed, offset, i - columns))
+				{
+					vertical++;
+					union(parent, size, i, i - columns);
+				}
+				if (overhangOffset >= 0 && isSet(packed, offset, overhangOffset + i))
+					overhangs++;
+				if (finOffset >= 0 && isSet(packed, offset, finOffset + i))
+					fins++;
+			}
+		}
+
+		int clusters = 0;
+		int largest = 0;
+		for (int i = 0; i < cells; i++)
+		{
+			if (size[i] > 0 && parent[i] == i)
+			{
+				clusters++;
+				largest = Math.max(largest, size[i]);
+			}
+		}
+
+		k = totals;
+		out[k++] = (double) windows / cells;
+		out[k++] = horizontal;
+		out[k++] = vertical;
+		out[k++] = clusters;
+		out[k++] = largest;
+		if (overhangOffset >= 0)
+			out[k++] = overhangs;
+		if (finOffset >= 0)
+			out[k++] = fins;
+	}
+
+	private static boolean isSet(long[] packed, int offset, int bit)
+	{
+		return (packed[offset + (bit >>> 6)] & (1L << bit)) != 0;
+	}
+
+	private static int find(int[] parent, int i)
+	{
+		while (parent[i] != i)
+		{
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private static void union(int[] parent, int[] size, int a, int b)
+	{
+		int ra = find(parent, a);
+		int rb = find(parent, b);
+		if (ra == rb)
+			return;
+		if (size[ra] < size[rb])
+		{
+			int t = ra;
+			ra = rb;
+			rb = t;
+		}
+		parent[rb] = ra;
+		size[ra] += size[rb];
+	}
+}
@@ -1,8 +1,32 @@
 package regression;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
 
+import WindowShading.FacadeGeometry;
+import metrics.Metrics;
+
+import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Evaluation;
 import weka.classifiers.functions.MultilayerPerceptron;
 import weka.core.Attribute;
@@ -13,12 +37,97 @@ public class Model
 {
 	/** The data set used to train the model. */
 	private double[][] set;
-	/** The Artificial Neural Network (model) object. */
-	private MultilayerPerceptron mlp;
+	/** The network predictions are made with, {@code null} until the model is first trained. */
+	private volatile Trained current;
 	/** The instances build from the data set. */
 	private Instances trainingSet;
 	/** Evaluation object of the trained model. */
 	private Evaluation evaluation;
+	/** The facade the solutions describe. */
+	private FacadeGeometry geometry;
+	/** The inputs the next network is trained on. */
+	private volatile FacadeFeatures.Encoding encoding = FacadeFeatures.Encoding.RAW;
+	/** Turns the genomes into the inputs of the network being trained; predictions use the current network's. */
+	private FacadeFeatures features;
+	/** Hyperparameters of the network. */
+	private volatile NetworkSettings settings = NetworkSettings.DEFAULT;
+	/** File the trained network is saved to and reloaded from, {@code null} to always train. */
+	private File modelFile;
+	/** Fingerprint of the training of the current network, {@code null} if it is not known. */
+	private byte[] trainedFingerprint;
+	/** Lowest plausible prediction; the network's outputs below it are out of range. */
+	private volatile double minPrediction = 10000;
+	/** Highest plausible prediction; the network's outputs above it are out of range. */
+	private volatile double maxPrediction = Double.POSITIVE_INFINITY;
+	/** What replaces an out of range prediction. */
+	private volatile OutOfRange outOfRange = OutOfRange.CLAMP;
+	/** Estimates the energy when the network gives no usable prediction, {@code null} for the training mean. */
+	private volatile ToDoubleFunction<boolean[]> fallback;
+	/** Mean energy of the training data, the default fallback. */
+	private volatile double trainingMean = Double.NaN;
+	private double trainingSum;
+	private long trainingCount;
+	/** Time after which a prediction stops retrying and falls back. */
+	private volatile long predictionCeilingNanos = DEFAULT_PREDICTION_CEILING_NANOS;
+
+	/** File the trained network is kept in by default, next to the training data. */
+	public static final String DEFAULT_FILE = "surrogate.model";
+	private static final int MAGIC = 0x4D4C504D; // "MLPM"
+	private static final int FORMAT_VERSION = 1;
+	/** Default latency ceiling of a prediction. */
+	public static final long DEFAULT_PREDICTION_CEILING_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	/** Most times the network is asked for one prediction when it fails. */
+	private static final int MAX_PREDICTION_ATTEMPTS = 3;
+
+	/** How a prediction outside the plausible range is replaced. */
+	public enum OutOfRange
+	{
+		/** By the nearest bound of the range. */
+		CLAMP,
+		/** By the fallback's estimate. */
+		FALLBACK
+	}
+	/**
+	 * Each thread's copy of the network. Classifying an instance stores the neuron values in the network, so
+	 * threads predicting at the same time must not share one.
+	 */
+	private final ThreadLocal<Replica> replicas = new ThreadLocal<>();
+
+	/**
+	 * A trained network with the inputs and attributes it was trained on. Published as a whole with a single
+	 * volatile write, so a prediction running while the model is retrained never pairs the new inputs with the old
+	 * network.
+	 */
+	private static final class Trained
+	{
+		final MultilayerPerceptron mlp;
+		final FacadeFeatures features;
+		/** Empty data set with the network's attributes, shared by all predictions. */
+		final Instances header;
+		/** Number of times the model has been built; predictions of different versions are not comparable. */
+		final int version;
+
+		Trained(MultilayerPerceptron mlp, FacadeFeatures features, Instances header, int version)
+		{
+			this.mlp = mlp;
+			this.features = features;
+			this.header = header;
+			this.version = version;
+		}
+	}
+
+	/** A thread's copy of the network and the version it was copied from. */
+	private static final class Replica
+	{
+		final int version;
+		final MultilayerPerceptron mlp;
+
+		Replica(int version, MultilayerPerceptron mlp)
+		{
+			this.version = version;
+			this.mlp = mlp;
+		}
+	}
 	
 	/**
 	 * Constructor for the Model object.
@@ -26,23 +135,272 @@ public class Model
 	 * @param set The dataset of pre-evaluated solutions.
 	 */
 	public Model(double[][] set)
+	{
+		this(set, FacadeGeometry.DEFAULT);
+	}
+
+	/**
+	 * Constructor for the Model object.
+	 * 
+	 * @param set The dataset of pre-evaluated solutions, one genome followed by its energy per row.
+	 * @param geometry The facade the solutions describe.
+	 */
+	public Model(double[][] set, FacadeGeometry geometry)
 	{
 		this.set = set;
+		this.geometry = geometry;
+		this.features = new FacadeFeatures(geometry, FacadeFeatures.Encoding.RAW);
+	}
+
+	/**
+	 * Mutator method for the inputs of the network, used from the next training (or tuning) on.
+	 * 
+	 * @param encoding The raw genome bits, structural features of the layout, or both.
+	 */
+	public void setEncoding(FacadeFeatures.Encoding encoding)
+	{
+		this.encoding = encoding;
 	}
 	
 	/**
-	 * Trains the model.
+	 * Trains the model. Training is serialised, so runs sharing the model may retrain it concurrently.
+	 * With a model file, a network saved from the same training data and settings is reloaded instead, and a newly
+	 * trained one is saved. The version only changes if the network does.
+	 * 
+	 * @return {@code true} if a different network is now in use, {@code false} if the current one was kept.
 	 */
-	public void go()
+	public synchronized boolean go()
 	{
+		if (features.getEncoding() != encoding)
+			features = new FacadeFeatures(geometry, encoding);
 		ArrayList<Attribute> attributes = createModelAttributes();
 		
 		trainingSet = createSet(attributes, set);
+		trainingSum = 0;
+		trainingCount = 0;
+		addToMean(set);
+
+		if (modelFile != null)
+		{
+			byte[] fingerprint = fingerprint();
+			// nothing changed since the current network was trained, keep it and its version
+			if (current != null && Arrays.equals(fingerprint, trainedFingerprint))
+				return false;
+			if (load(modelFile, fingerprint))
+			{
+				trainedFingerprint = fingerprint;
+				System.out.println("surrogate model loaded from " + modelFile);
+				return true;
+			}
+			int before = getVersion();
+			build(trainingSet, null);
+			trainedFingerprint = fingerprint;
+			save(modelFile, fingerprint);
+			return getVersion() != before;
+		}
+		trainedFingerprint = null;
 		
 		// TODO delete - temporary
 //		double[][] temp = getTen(set);
 //		Instances testSet = createSet(attributes, temp);
+		int before = getVersion();
 		build(trainingSet, null);
+		return getVersion() != before;
+	}
+
+	/**
+	 * Computes the fingerprint of what the network is trained from: the attributes, the training data and the
+	 * network's settings. A saved network is only reloaded for the same fingerprint.
+	 * 
+	 * @return The SHA-256 digest.
+	 */
+	private byte[] fingerprint()
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			// room for a whole row however long the genomes are
+			int longest = 0;
+			for (double[] row : set)
+				longest = Math.max(longest, row.length);
+			ByteBuffer buffer = ByteBuffer.allocate(Math.max(8 * 1024, 4 + 8 * longest));
+			buffer.putInt(geometry.getGenomeLength()).putInt(set.length);
+			for (double[] row : set)
+			{
+				if (buffer.remaining() < 4 + 8 * row.length)
+				{
+					buffer.flip();
+					digest.update(buffer);
+					buffer.clear();
+				}
+				buffer.putInt(row.length);
+				for (double v : row)
+					buffer.putLong(Double.doubleToLongBits(v));
+			}
+			buffer.flip();
+			digest.update(buffer);
+			digest.update(features.getEncoding().name().getBytes(StandardCharsets.UTF_8));
+			digest.update(String.join(" ", newNetwork().getOptions()).getBytes(StandardCharsets.UTF_8));
+			return digest.digest();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Saves the trained network with the fingerprint of its training. The file is written aside and then moved in
+	 * place, so a concurrent or interrupted save never leaves a truncated model behind.
+	 * 
+	 * @param file The file to write.
+	 * @param fingerprint The fingerprint of the network's training.
+	 */
+	private void save(File file, byte[] fingerprint)
+	{
+		Trained trained = current;
+		if (trained == null)
+			return;
+		File temporary = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary))))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(fingerprint.length);
+			out.write(fingerprint);
+			ObjectOutputStream oos = new ObjectOutputStream(out);
+			oos.writeObject(trained.mlp);
+			oos.flush();
+		}
+		catch (IOException e)
+		{
+			System.err.println("could not save the surrogate model to " + file + ": " + e.getMessage());
+			temporary.delete();
+			return;
+		}
+
+		try
+		{
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e)
+		{
+			System.err.println("could not save the surrogate model to " + file + ": " + e.getMessage());
+			temporary.delete();
+		}
+	}
+
+	/**
+	 * Reloads a saved network if it was trained with the given fingerprint, and publishes it as a new version.
+	 * 
+	 * @param file The file to read.
+	 * @param fingerprint The fingerprint the network must have been trained with.
+	 * @return {@code true} if the network was reloaded; {@code false} if there is none, it is stale or unreadable.
+	 */
+	private boolean load(File file, byte[] fingerprint)
+	{
+		if (!file.isFile())
+			return false;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+				return false;
+			byte[] saved = new byte[in.readInt()];
+			in.readFully(saved);
+			if (!Arrays.equals(saved, fingerprint))
+			{
+				System.out.println("surrogate model in " + file + " is stale, retraining");
+				return false;
+			}
+			MultilayerPerceptron loaded = (MultilayerPerceptron) new ObjectInputStream(in).readObject();
+			publish(loaded);
+			return true;
+		}
+		catch (IOException | ClassNotFoundException | ClassCastException | NegativeArraySizeException e)
+		{
+			// e.g. a file written by another Weka version
+			System.err.println("could not load the surrogate model from " + file + ": " + e);
+			return false;
+		}
+	}
+
+	/**
+	 * Mutator method for the file the trained network is kept in between runs.
+	 * 
+	 * @param modelFile The file, {@code null} to train the network on every start.
+	 */
+	public void setModelFile(File modelFile)
+	{
+		this.modelFile = modelFile;
+	}
+
+	/**
+	 * Creates an untrained network with the model's settings.
+	 * 
+	 * @return The network.
+	 */
+	private MultilayerPerceptron newNetwork()
+	{
+		MultilayerPerceptron network = new MultilayerPerceptron();
+		settings.apply(network);
+		return network;
+	}
+
+	/**
+	 * Mutator method for the hyperparameters of the network, used from the next training on.
+	 * 
+	 * @param settings The hyperparameters.
+	 */
+	public void setSettings(NetworkSettings settings)
+	{
+		this.settings = settings;
+	}
+
+	/**
+	 * Accessor method for the hyperparameters of the network.
+	 * 
+	 * @return The hyperparameters.
+	 */
+	public NetworkSettings getSettings()
+	{
+		return settings;
+	}
+
+	/**
+	 * Chooses the hyperparameters by cross-validating candidates on the training data, a fold per core at a time,
+	 * and adopts the most accurate one within the latency ceiling. Prints a table of every candidate. The network
+	 * itself is trained by the next {@link #go()}.
+	 * 
+	 * @param candidates The candidates, e.g. a {@link ModelSelection#grid(String[], double[], int[])}.
+	 * @param folds The number of folds.
+	 * @param budgetMillis The wall-clock budget of the search.
+	 * @param latencyCeilingNanos The longest acceptable mean prediction time, 0 for no ceiling.
+	 * @return The chosen candidate's result, {@code null} if none was complete and fast enough; the settings are
+	 *         left unchanged then.
+	 */
+	public synchronized ModelSelection.Result tune(List<NetworkSettings> candidates, int folds, long budgetMillis,
+			long latencyCeilingNanos)
+	{
+		if (features.getEncoding() != encoding)
+			features = new FacadeFeatures(geometry, encoding);
+		ModelSelection selection = new ModelSelection(createSet(createModelAttributes(), set), folds, 1);
+		List<ModelSelection.Result> results = selection.search(candidates, budgetMillis,
+				Runtime.getRuntime().availableProcessors());
+		ModelSelection.print(results, System.out);
+
+		ModelSelection.Result best = ModelSelection.best(results, latencyCeilingNanos);
+		if (best != null)
+		{
+			settings = best.getSettings();
+			System.out.println("surrogate settings: " + settings);
+		}
+		else
+		{
+			System.out.println("no candidate finished within the budget and the latency ceiling, keeping " + settings);
+		}
+		return best;
 	}
 	
 	/**
@@ -53,9 +411,9 @@ public class Model
 	private ArrayList<Attribute> createModelAttributes()
 	{
 		ArrayList<Attribute> attributes = new ArrayList<>();
-		for (int i = 1; i <= 120; i++)
+		for (String name : features.names())
 		{
-			attributes.add(new Attribute("W" + i));
+			attributes.add(new Attribute(name));
 		}
 		
 		Attribute classAttribute = new Attribute("Energy");
@@ -77,12 +435,26 @@ public class Model
 		
 		for (int i = 0; i < solutionSet.length; i++)
 		{
-			instances.add(new DenseInstance(1.0, solutionSet[i]));
+			instances.add(toInstance(solutionSet[i]));
 		}
 		instances.setClass(attributes.get(attributes.size() - 1));
 		
 		return instances;
 	}
+
+	/**
+	 * Create an instance from a row of the data set.
+	 * 
+	 * @param row A genome followed by its energy.
+	 * @return The instance, the genome's inputs followed by the energy.
+	 */
+	private DenseInstance toInstance(double[] row)
+	{
+		double[] values = new double[features.size() + 1];
+		features.extract(row, values);
+		values[values.length - 1] = row[row.length - 1];
+		return new DenseInstance(1.0, values);
+	}
 	
 	/**
 	 * Randomly gets 10 solutions from the data set.
@@ -104,15 +476,16 @@ public class Model
 		return newSet;
 	}
 	
-	public void retrain(double[][] alleles)
+	public synchronized void retrain(double[][] alleles)
 	{
+		trainedFingerprint = null;
 		addToInstances(alleles);
 		
 		build(trainingSet, null);
 		
 		try {
 			Evaluation evaluation = new Evaluation(trainingSet);
-			evaluation.evaluateModel(mlp, createSet(createModelAttributes(), getTen(alleles)));
+			evaluation.evaluateModel(current.mlp, createSet(createModelAttributes(), getTen(alleles)));
 			evaluation.toSummaryString();
 		}
 		catch (Exception e) {
@@ -125,8 +498,19 @@ public class Model
 	{
 		for (int i = 0; i < set.length; i++)
 		{
-			trainingSet.add(new DenseInstance(1.0, set[i]));
+			trainingSet.add(toInstance(set[i]));
+		}
+		addToMean(set);
+	}
+
+	private void addToMean(double[][] set)
+	{
+		for (double[] row : set)
+		{
+			trainingSum += row[row.length - 1];
+			trainingCount++;
 		}
+		trainingMean = trainingCount > 0 ? trainingSum / trainingCount : Double.NaN;
 	}
 	
 	/**
@@ -139,13 +523,15 @@ public class Model
 	{
 		try
 		{
-			mlp = new MultilayerPerceptron();
-			mlp.buildClassifier(trainingSet);
+			// trained aside and then published, predictions keep using the previous network meanwhile
+			MultilayerPerceptron network = newNetwork();
+			network.buildClassifier(trainingSet);
+			publish(network);
 			
 			if (testSet != null)
 			{
 				evaluation = new Evaluation(trainingSet);
-				evaluation.evaluateModel(mlp, testSet);
+				evaluation.evaluateModel(network, testSet);
 			}
 		}
 		catch (Exception e)
@@ -154,43 +540,214 @@ public class Model
 		}
 	}
 
+	/**
+	 * Makes a network the one predictions are made with, together with the inputs and attributes of the training
+	 * set, as a new version.
+	 * 
+	 * @param network The trained network.
+	 */
+	private void publish(MultilayerPerceptron network)
+	{
+		current = new Trained(network, features, new Instances(trainingSet, 0), getVersion() + 1);
+	}
+
 	/**
 	 * Predict the energy consumption of the passed in boolean array.
+	 * Safe to call from several threads: each predicts with its own copy of the current network.
+	 * 
+	 * The network is asked again if it fails, at most {@value #MAX_PREDICTION_ATTEMPTS} times and not past the
+	 * latency ceiling; if it still gives nothing, or gives NaN, the fallback's estimate is used. A prediction outside
+	 * the plausible range is clamped to it or replaced by the fallback's estimate. Each of these events is counted in
+	 * {@link Metrics}.
 	 * 
 	 * @param alleles An array of booleans representing the windows of a layout.
-	 * @return The predicted energy consumption.
+	 * @return The predicted energy consumption, always within the plausible range.
 	 */
 	public double predict(boolean[] alleles) 
 	{
-		double[] temp = new double[alleles.length + 1];
-		for (int i = 0; i < alleles.length; i++) {
-			temp[i] = alleles[i] ? 1 : 0;
+		Trained trained = current;
+		return predict(trained, (trained != null ? trained.features : features).pack(alleles), 0);
+	}
+
+	/**
+	 * Predict the energy consumption of a packed genome, as {@link #predict(boolean[])} does.
+	 * 
+	 * @param packed The packed genomes, as held by {@code Optimisation.Population}: bit {@code i} of the genome is
+	 *            bit {@code i % 64} of long {@code offset + i / 64}.
+	 * @param offset The index of the genome's first word.
+	 * @return The predicted energy consumption, always within the plausible range.
+	 */
+	public double predict(long[] packed, int offset)
+	{
+		return predict(current, packed, offset);
+	}
+
+	/**
+	 * Predicts with one published network throughout, whatever is published meanwhile.
+	 */
+	private double predict(Trained trained, long[] packed, int offset)
+	{
+		long start = System.nanoTime();
+		long deadline = start + predictionCeilingNanos;
+		double prediction = Double.NaN;
+		boolean predicted = false;
+		// untrained, only the fallback can answer
+		FacadeFeatures features = trained != null ? trained.features : this.features;
+		int attempts = trained != null ? MAX_PREDICTION_ATTEMPTS : 0;
+
+		DenseInstance instance = null;
+		MultilayerPerceptron mlp = null;
+		if (trained != null)
+		{
+			mlp = replica(trained);
+			double[] temp = new double[features.size() + 1];
+			features.extract(packed, offset, temp);
+			instance = new DenseInstance(1.0, temp);
+			instance.setDataset(trained.header);
 		}
 		
-		Instances instances = new Instances("Training Set", createModelAttributes(), 1);
-		instances.add(new DenseInstance(1.0, temp));
-		instances.setClassIndex(trainingSet.numAttributes() - 1);
-		
-		double prediction = 0;
-		
-		while (prediction < 10000 /*min val*/ || Double.isNaN(prediction)) {
-			try {
-				prediction = mlp.classifyInstance(instances.instance(0));
-			} 
-			catch (NullPointerException ne)
+		for (int attempt = 0; !predicted && attempt < attempts; attempt++)
+		{
+			if (attempt > 0 && System.nanoTime() - deadline >= 0)
+				break;
+			try
 			{
-				// System.out.println(ne.getCause());// TODO ignore this, no idea
-													// why it gets thrown
+				prediction = mlp.classifyInstance(instance);
+				predicted = true;
 			}
 			catch (Exception e)
 			{
-				System.out.println(instances.instance(0));
-				e.printStackTrace();
+				Metrics.SURROGATE_ERRORS.incrementAndGet();
 			}
 		}
-		return prediction;
+		if (System.nanoTime() - deadline > 0)
+			Metrics.SURROGATE_OVER_CEILING.incrementAndGet();
+
+		double min = minPrediction;
+		double max = maxPrediction;
+		if (!predicted || Double.isNaN(prediction))
+		{
+			if (predicted)
+				Metrics.SURROGATE_NAN.incrementAndGet();
+			prediction = fallback(features.unpack(packed, offset));
+		}
+		else if (prediction < min || prediction > max)
+		{
+			Metrics.SURROGATE_OUT_OF_RANGE.incrementAndGet();
+			if (outOfRange == OutOfRange.FALLBACK)
+				prediction = fallback(features.unpack(packed, offset));
+		}
+
+		Metrics.SURROGATE_PREDICT.record(System.nanoTime() - start);
+		return Math.min(Math.max(prediction, min), max);
+	}
+
+	/**
+	 * Estimates the energy of a layout the network could not predict.
+	 * 
+	 * @param alleles The layout.
+	 * @return The fallback's estimate, the lowest plausible prediction if there is none.
+	 */
+	private double fallback(boolean[] alleles)
+	{
+		Metrics.SURROGATE_FALLBACKS.incrementAndGet();
+		ToDoubleFunction<boolean[]> f = fallback;
+		double estimate = f != null ? f.applyAsDouble(alleles) : trainingMean;
+		return Double.isNaN(estimate) ? minPrediction : estimate;
+	}
+
+	/**
+	 * Mutator method for the range of plausible predictions.
+	 * 
+	 * @param min The lowest plausible prediction.
+	 * @param max The highest plausible prediction.
+	 */
+	public void setPredictionRange(double min, double max)
+	{
+		if (!(min <= max))
+			throw new IllegalArgumentException("empty prediction range " + min + " to " + max);
+		minPrediction = min;
+		maxPrediction = max;
+	}
+
+	/**
+	 * Mutator method for how out of range predictions are replaced.
+	 * 
+	 * @param outOfRange Clamp them to the range, or use the fallback's estimate.
+	 */
+	public void setOutOfRange(OutOfRange outOfRange)
+	{
+		this.outOfRange = outOfRange;
+	}
+
+	/**
+	 * Mutator method for the model estimating the energy when the network gives no usable prediction.
+	 * 
+	 * @param fallback The fallback, {@code null} for the mean energy of the training data.
+	 */
+	public void setFallback(ToDoubleFunction<boolean[]> fallback)
+	{
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Mutator method for the latency ceiling of a prediction. A failing network is not asked again past it.
+	 * 
+	 * @param nanos The ceiling, in nanoseconds.
+	 */
+	public void setPredictionCeiling(long nanos)
+	{
+		predictionCeilingNanos = nanos;
 	}
 	
+	/**
+	 * Returns the calling thread's copy of a network, copying it if the model has been trained since the thread
+	 * last predicted.
+	 * 
+	 * @param trained The published network.
+	 * @return The network to classify with.
+	 */
+	private MultilayerPerceptron replica(Trained trained)
+	{
+		Replica r = replicas.get();
+		if (r == null || r.version != trained.version)
+		{
+			try
+			{
+				r = new Replica(trained.version, (MultilayerPerceptron) AbstractClassifier.makeCopy(trained.mlp));
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace();
+				return trained.mlp;
+			}
+			replicas.set(r);
+		}
+		return r.mlp;
+	}
+
+	/**
+	 * Accessor method for the model version. It changes every time the model is trained, so anything holding a
+	 * prediction can tell whether it came from the current model.
+	 * 
+	 * @return The number of times the model has been built.
+	 */
+	public int getVersion()
+	{
+		Trained trained = current;
+		return trained != null ? trained.version : 0;
+	}
+
+	/**
+	 * Accessor method for the facade geometry.
+	 * 
+	 * @return The facade the model's solutions describe.
+	 */
+	public FacadeGeometry getGeometry()
+	{
+		return geometry;
+	}
+
 	/**
 	 * Accessor method for the Evaolution object.
 	 * @return The Evalution object.
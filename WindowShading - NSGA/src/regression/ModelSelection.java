@@ -0,0 +1,351 @@
+package regression;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import weka.classifiers.functions.MultilayerPerceptron;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Chooses the surrogate's hyperparameters by k-fold cross-validation under a wall-clock budget.
+ *
+ * Every fold of every candidate is an independent task: a network is trained on the other folds and times its
+ * predictions of the held out one. The tasks run in parallel, a thread per core, in candidate order, so that when
+ * the budget runs out the candidates tried so far are complete and the rest are simply not started; a candidate
+ * is only ranked if all its folds finished. Weka's training cannot be interrupted, so a fold is only started if
+ * its epochs, at the time per epoch measured for its hidden layers, fit in what is left of the budget. The chosen candidate is the most accurate (lowest cross-validated RMSE)
+ * of those predicting within the latency ceiling, since a surrogate is only worth its accuracy if the optimiser can
+ * afford to call it.
+ */
+public class ModelSelection
+{
+	/** The cross-validated performance of a candidate. */
+	public static final class Result
+	{
+		private final NetworkSettings settings;
+		private final int folds;
+		private int completed;
+		private long count;
+		private double sumAbsolute;
+		private double sumSquared;
+		private long predictNanos;
+		private long trainNanos;
+
+		Result(NetworkSettings settings, int folds)
+		{
+			this.settings = settings;
+			this.folds = folds;
+		}
+
+		void add(Fold fold)
+		{
+			completed++;
+			count += fold.count;
+			sumAbsolute += fold.sumAbsolute;
+			sumSquared += fold.sumSquared;
+			predictNanos += fold.predictNanos;
+			trainNanos += fold.trainNanos;
+		}
+
+		public NetworkSettings getSettings()
+		{
+			return settings;
+		}
+
+		/**
+		 * @return {@code true} if every fold was evaluated within the budget.
+		 */
+		public boolean isComplete()
+		{
+			return completed == folds;
+		}
+
+		/**
+		 * @return The root mean squared error over the held out folds.
+		 */
+		public double getRmse()
+		{
+			return count > 0 ? Math.sqrt(sumSquared / count) : Double.NaN;
+		}
+
+		/**
+		 * @return The mean absolute error over the held out folds.
+		 */
+		public double getMae()
+		{
+			return count > 0 ? sumAbsolute / count : Double.NaN;
+		}
+
+		/**
+		 * @return The mean time of one prediction, in nanoseconds.
+		 */
+		public double getPredictNanos()
+		{
+			return count > 0 ? (double) predictNanos / count : Double.NaN;
+		}
+
+		/**
+		 * @return The mean time to train the network on one fold's training set, in milliseconds.
+		 */
+		public double getTrainMillis()
+		{
+			return completed > 0 ? trainNanos / 1e6 / completed : Double.NaN;
+		}
+	}
+
+	/** The outcome of one fold of one candidate. */
+	private static final class Fold
+	{
+		long count;
+		double sumAbsolute;
+		double sumSquared;
+		long predictNanos;
+		long trainNanos;
+	}
+
+	/** Share of the remaining budget a fold's projected training time may take, the rest is slack. */
+	private static final double BUDGET_SHARE = 0.9;
+	/** Epochs trained to measure the time per epoch of hidden layers not timed yet. */
+	private static final int PROBE_EPOCHS = 5;
+
+	private final Instances[] train;
+	private final Instances[] test;
+	/** Measured training time per epoch and instance, by hidden layer specification. */
+	private final ConcurrentHashMap<String, Double> epochNanos = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor for a selection over a data set.
+	 *
+	 * @param data The training data, with its class set.
+	 * @param folds The number of folds.
+	 * @param seed The seed the data is shuffled with before it is split.
+	 */
+	public ModelSelection(Instances data, int folds, long seed)
+	{
+		Instances shuffled = new Instances(data);
+		shuffled.randomize(new Random(seed));
+		train = new Instances[folds];
+		test = new Instances[folds];
+		for (int f = 0; f < folds; f++)
+		{
+			train[f] = shuffled.trainCV(folds, f);
+			test[f] = shuffled.testCV(folds, f);
+		}
+	}
+
+	/**
+	 * Creates every combination of the given values.
+	 *
+	 * @param hiddenLayers The hidden layer specifications.
+	 * @param learningRates The learning rates.
+	 * @param epochs The numbers of epochs.
+	 * @return The candidates, with Weka's default momentum.
+	 */
+	public static List<NetworkSettings> grid(String[] hiddenLayers, double[] learningRates, int[] epochs)
+	{
+		List<NetworkSettings> candidates = new ArrayList<>();
+		for (String hidden : hiddenLayers)
+			for (double rate : learningRates)
+				for (int e : epochs)
+					candidates.add(new NetworkSettings(hidden, rate, NetworkSettings.DEFAULT.getMomentum(), e));
+		return candidates;
+	}
+
+	/**
+	 * Draws candidates at random: the hidden layers from a list, the learning rate log-uniformly and the epochs
+	 * uniformly from their ranges.
+	 *
+	 * @param count The number of candidates.
+	 * @param hiddenLayers The hidden layer specifications to choose from.
+	 * @param minRate The lowest learning rate.
+	 * @param maxRate The highest learning rate.
+	 * @param minEpochs The fewest epochs.
+	 * @param maxEpochs The most epochs.
+	 * @param seed The seed of the draws.
+	 * @return The candidates, with Weka's default momentum.
+	 */
+	public static List<NetworkSettings> random(int count, String[] hiddenLayers, double minRate, double maxRate,
+			int minEpochs, int maxEpochs, long seed)
+	{
+		Random r = new Random(seed);
+		List<NetworkSettings> candidates = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			double rate = minRate * Math.pow(maxRate / minRate, r.nextDouble());
+			int epochs = minEpochs + r.nextInt(maxEpochs - minEpochs + 1);
+			candidates.add(new NetworkSettings(hiddenLayers[r.nextInt(hiddenLayers.length)], rate,
+					NetworkSettings.DEFAULT.getMomentum(), epochs));
+		}
+		return candidates;
+	}
+
+	/**
+	 * Cross-validates the candidates until they are all done or the budget runs out. Folds that would not finish
+	 * within the budget are not started, and the search returns once every started fold has finished, so no
+	 * training outlives it.
+	 *
+	 * @param candidates The candidates, the most promising first.
+	 * @param budgetMillis The wall-clock budget.
+	 * @param threads The number of folds evaluated at once.
+	 * @return The results in candidate order, including incomplete ones.
+	 */
+	public List<Result> search(List<NetworkSettings> candidates, long budgetMillis, int threads)
+	{
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+		ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "model-selection");
+			t.setDaemon(true);
+			return t;
+		});
+
+		List<Result> results = new ArrayList<>();
+		List<List<Future<Fold>>> pending = new ArrayList<>();
+		for (NetworkSettings settings : candidates)
+		{
+			results.add(new Result(settings, train.length));
+			List<Future<Fold>> folds = new ArrayList<>();
+			for (int f = 0; f < train.length; f++)
+			{
+				int fold = f;
+				folds.add(executor.submit(() -> evaluate(settings, fold, deadline)));
+			}
+			pending.add(folds);
+		}
+
+		executor.shutdown();
+		try
+		{
+			// the folds still queued at the deadline return at once, the running ones were projected to fit
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+
+		for (int c = 0; c < candidates.size(); c++)
+		{
+			for (Future<Fold> future : pending.get(c))
+			{
+				if (!future.isDone() || future.isCancelled())
+					continue;
+				try
+				{
+					Fold fold = future.get();
+					if (fold != null)
+						results.get(c).add(fold);
+				}
+				catch (ExecutionException e)
+				{
+					System.err.println("cross-validation of " + candidates.get(c) + " failed: " + e.getCause());
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Trains a candidate on the training set of a fold and predicts the held out set, unless the training is not
+	 * expected to finish before the deadline.
+	 *
+	 * @return The outcome, {@code null} if the fold was not evaluated.
+	 */
+	private Fold evaluate(NetworkSettings settings, int f, long deadline) throws Exception
+	{
+		Instances data = train[f];
+		Double perEpoch = epochNanos.get(settings.getHiddenLayers());
+		if (perEpoch == null)
+		{
+			if (deadline - System.nanoTime() <= 0)
+				return null;
+			// time a few epochs first, an untimed network could run far past the deadline
+			MultilayerPerceptron probe = new MultilayerPerceptron();
+			settings.apply(probe);
+			int epochs = Math.min(PROBE_EPOCHS, settings.getEpochs());
+			probe.setTrainingTime(epochs);
+			long start = System.nanoTime();
+			probe.buildClassifier(new Instances(data));
+			perEpoch = (double) (System.nanoTime() - start) / epochs / Math.max(1, data.numInstances());
+			epochNanos.putIfAbsent(settings.getHiddenLayers(), perEpoch);
+		}
+		double projected = perEpoch * settings.getEpochs() * Math.max(1, data.numInstances());
+		if (projected > BUDGET_SHARE * (deadline - System.nanoTime()))
+			return null;
+
+		MultilayerPerceptron network = new MultilayerPerceptron();
+		settings.apply(network);
+
+		Fold fold = new Fold();
+		long start = System.nanoTime();
+		network.buildClassifier(new Instances(data));
+		fold.trainNanos = System.nanoTime() - start;
+		epochNanos.put(settings.getHiddenLayers(),
+				(double) fold.trainNanos / settings.getEpochs() / Math.max(1, data.numInstances()));
+
+		Instances held = test[f];
+		for (int i = 0; i < held.numInstances(); i++)
+		{
+			Instance instance = held.instance(i);
+			start = System.nanoTime();
+			double prediction = network.classifyInstance(instance);
+			fold.predictNanos += System.nanoTime() - start;
+			double error = prediction - instance.classValue();
+			fold.sumAbsolute += Math.abs(error);
+			fold.sumSquared += error * error;
+			fold.count++;
+		}
+		return fold;
+	}
+
+	/**
+	 * Picks the most accurate complete candidate within a latency ceiling.
+	 *
+	 * @param results The results of a search.
+	 * @param latencyCeilingNanos The longest acceptable mean prediction time, 0 for no ceiling.
+	 * @return The best result, {@code null} if no complete candidate is fast enough.
+	 */
+	public static Result best(List<Result> results, long latencyCeilingNanos)
+	{
+		Result best = null;
+		for (Result r : results)
+		{
+			if (!r.isComplete() || (latencyCeilingNanos > 0 && r.getPredictNanos() > latencyCeilingNanos))
+				continue;
+			if (best == null || r.getRmse() < best.getRmse())
+				best = r;
+		}
+		return best;
+	}
+
+	/**
+	 * Prints a table of the results.
+	 *
+	 * @param results The results of a search.
+	 * @param out The stream to print to.
+	 */
+	public static void print(List<Result> results, PrintStream out)
+	{
+		out.println("candidate                                      rmse        mae  predict us   train ms");
+		for (Result r : results)
+		{
+			out.println(String.format(Locale.ROOT, "%-40s %10.2f %10.2f %11.2f %10.1f%s", r.getSettings(),
+					r.getRmse(), r.getMae(), r.getPredictNanos() / 1e3, r.getTrainMillis(),
+					r.isComplete() ? "" : "  (incomplete)"));
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package regression;
+
+import java.util.Locale;
+
+import weka.classifiers.functions.MultilayerPerceptron;
+
+/**
+ * The hyperparameters of the surrogate's network, written {@code key=value,key=value} with the keys
+ * {@code hidden} (Weka's hidden layer specification with the layers separated by {@code /}, e.g. {@code a} or
+ * {@code 20/10}), {@code rate} (the learning rate), {@code momentum} and {@code epochs}. Keys left out keep Weka's
+ * defaults.
+ */
+public final class NetworkSettings
+{
+	/** Weka's defaults. */
+	public static final NetworkSettings DEFAULT = new NetworkSettings("a", 0.3, 0.2, 500);
+
+	private final String hiddenLayers;
+	private final double learningRate;
+	private final double momentum;
+	private final int epochs;
+
+	/**
+	 * Constructor for a set of hyperparameters.
+	 *
+	 * @param hiddenLayers The hidden layers in Weka's notation, comma or slash separated.
+	 * @param learningRate The learning rate.
+	 * @param momentum The momentum.
+	 * @param epochs The number of training epochs.
+	 */
+	public NetworkSettings(String hiddenLayers, double learningRate, double momentum, int epochs)
+	{
+		this.hiddenLayers = hiddenLayers.replace('/', ',');
+		this.learningRate = learningRate;
+		this.momentum = momentum;
+		this.epochs = epochs;
+	}
+
+	/**
+	 * Parses a set of hyperparameters.
+	 *
+	 * @param spec The hyperparameters as written on the command line.
+	 * @return The hyperparameters.
+	 * @throws IllegalArgumentException If a key or value is not understood.
+	 */
+	public static NetworkSettings parse(String spec)
+	{
+		String hidden = DEFAULT.hiddenLayers;
+		double rate = DEFAULT.learningRate;
+		double momentum = DEFAULT.momentum;
+		int epochs = DEFAULT.epochs;
+		for (String option : spec.split(","))
+		{
+			String[] kv = option.split("=", 2);
+			if (kv.length != 2)
+				throw new IllegalArgumentException("expected key=value in " + spec + ": " + option);
+			switch (kv[0])
+			{
+				case "hidden":
+					hidden = kv[1];
+					break;
+				case "rate":
+					rate = Double.parseDouble(kv[1]);
+					break;
+				case "momentum":
+					momentum = Double.parseDouble(kv[1]);
+					break;
+				case "epochs":
+					epochs = Integer.parseInt(kv[1]);
+					break;
+				default:
+					throw new IllegalArgumentException("unknown option " + kv[0] + " in " + spec);
+			}
+		}
+		return new NetworkSettings(hidden, rate, momentum, epochs);
+	}
+
+	/**
+	 * Sets the hyperparameters on a network.
+	 *
+	 * @param network The untrained network.
+	 */
+	void apply(MultilayerPerceptron network)
+	{
+		network.setHiddenLayers(hiddenLayers);
+		network.setLearningRate(learningRate);
+		network.setMomentum(momentum);
+		network.setTrainingTime(epochs);
+	}
+
+	public String getHiddenLayers()
+	{
+		return hiddenLayers;
+	}
+
+	public double getLearningRate()
+	{
+		return learningRate;
+	}
+
+	public double getMomentum()
+	{
+		return momentum;
+	}
+
+	public int getEpochs()
+	{
+		return epochs;
+	}
+
+	/**
+	 * @return The hyperparameters in the form {@link #parse(String)} reads.
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format(Locale.ROOT, "hidden=%s,rate=%s,momentum=%s,epochs=%d", hiddenLayers.replace(',', '/'),
+				learningRate, momentum, epochs);
+	}
+}
@@ -0,0 +1,93 @@
+package regression;
+
+/**
+ * Simple linear regression of one variable on another, updated one pair at a time.
+ * Means and co-moments are kept with Welford's updates, so the fit stays numerically stable however many pairs
+ * are added and never needs the pairs themselves.
+ */
+public class OnlineLinearRegression
+{
+	private long count;
+	private double meanX;
+	private double meanY;
+	/** Sum of squared deviations of x. */
+	private double m2X;
+	/** Sum of squared deviations of y. */
+	private double m2Y;
+	/** Sum of co-deviations of x and y. */
+	private double cXY;
+
+	/**
+	 * Adds an observed pair.
+	 *
+	 * @param x The explanatory value.
+	 * @param y The response value.
+	 */
+	public void add(double x, double y)
+	{
+		count++;
+		double dx = x - meanX;
+		meanX += dx / count;
+		double dy = y - meanY;
+		meanY += dy / count;
+		m2X += dx * (x - meanX);
+		m2Y += dy * (y - meanY);
+		cXY += dx * (y - meanY);
+	}
+
+	/**
+	 * @return The number of pairs added.
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * @return The slope of the least squares line, 0 until x has varied.
+	 */
+	public double getSlope()
+	{
+		return m2X > 0 ? cXY / m2X : 0;
+	}
+
+	/**
+	 * @return The intercept of the least squares line.
+	 */
+	public double getIntercept()
+	{
+		return meanY - getSlope() * meanX;
+	}
+
+	/**
+	 * Predicts the response for an explanatory value.
+	 *
+	 * @param x The explanatory value.
+	 * @return The fitted response.
+	 */
+	public double predict(double x)
+	{
+		return getIntercept() + getSlope() * x;
+	}
+
+	/**
+	 * @return Pearson's correlation coefficient of the pairs, {@code NaN} until both variables have varied.
+	 */
+	public double getCorrelation()
+	{
+		if (m2X <= 0 || m2Y <= 0)
+			return Double.NaN;
+		return cXY / Math.sqrt(m2X * m2Y);
+	}
+
+	/**
+	 * @return The standard deviation of the residuals around the fitted line, infinite with fewer than 3 pairs.
+	 */
+	public double getResidualStandardDeviation()
+	{
+		if (count < 3)
+			return Double.POSITIVE_INFINITY;
+		double sse = m2Y - (m2X > 0 ? cXY * cXY / m2X : 0);
+		return Math.sqrt(Math.max(0, sse) / (count - 2));
+	}
+}
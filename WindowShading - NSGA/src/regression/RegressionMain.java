@@ -17,10 +17,12 @@ public class RegressionMain
 //		System.out.println(set.length);
 		
 		Model model = new Model(set);
+		model.setModelFile(new File(Model.DEFAULT_FILE));
 		model.go();
 		
 		System.out.println("** MLP **");
-		System.out.println(model.getEvaluation().toSummaryString());
+		if (model.getEvaluation() != null)
+			System.out.println(model.getEvaluation().toSummaryString());
 		
 //		boolean[] alleles = new boolean[120];
 //		for (int i = 0; i < alleles.length; i++) {
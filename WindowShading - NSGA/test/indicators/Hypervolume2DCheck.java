@@ -0,0 +1,97 @@
+package indicators;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks {@link Hypervolume2D#compute(double[], double[], int, double, double)} against brute force references:
+ * counting the dominated cells of an integer grid, and the area of the union of the points' rectangles over the
+ * compressed coordinates for real valued points. The point sets include duplicates, dominated points and points
+ * beyond the reference point.
+ */
+public class Hypervolume2DCheck
+{
+	private static final int ROUNDS = 2000;
+
+	public static void main(String[] args)
+	{
+		Random r = new Random(1);
+		for (int round = 0; round < ROUNDS; round++)
+		{
+			int n = r.nextInt(12);
+			double[] f1 = new double[n];
+			double[] f2 = new double[n];
+			for (int i = 0; i < n; i++)
+			{
+				f1[i] = r.nextInt(24);
+				f2[i] = r.nextInt(24);
+			}
+			check(f1, f2, 20, 20, grid(f1, f2, 20, 20));
+
+			for (int i = 0; i < n; i++)
+			{
+				f1[i] = r.nextDouble() * 12000;
+				f2[i] = r.nextDouble() * 40000;
+			}
+			check(f1, f2, 10000, 35000, union(f1, f2, 10000, 35000));
+		}
+		System.out.println("Hypervolume2D: " + ROUNDS + " rounds ok");
+	}
+
+	private static void check(double[] f1, double[] f2, double ref1, double ref2, double expected)
+	{
+		double actual = Hypervolume2D.compute(f1, f2, f1.length, ref1, ref2);
+		if (Math.abs(actual - expected) > 1e-9 * Math.max(1, Math.abs(expected)))
+			throw new AssertionError("hypervolume of " + Arrays.toString(f1) + " " + Arrays.toString(f2) + " is "
+					+ expected + ", computed " + actual);
+	}
+
+	/**
+	 * Counts the unit cells of the grid below the reference point that some point dominates.
+	 */
+	private static double grid(double[] f1, double[] f2, int ref1, int ref2)
+	{
+		int cells = 0;
+		for (int x = 0; x < ref1; x++)
+			for (int y = 0; y < ref2; y++)
+				for (int i = 0; i < f1.length; i++)
+					if (f1[i] <= x && f2[i] <= y)
+					{
+						cells++;
+						break;
+					}
+		return cells;
+	}
+
+	/**
+	 * Sums the cells between consecutive coordinates of the points that some point's rectangle covers.
+	 */
+	private static double union(double[] f1, double[] f2, double ref1, double ref2)
+	{
+		double[] xs = coordinates(f1, ref1);
+		double[] ys = coordinates(f2, ref2);
+		double area = 0;
+		for (int a = 0; a + 1 < xs.length; a++)
+			for (int b = 0; b + 1 < ys.length; b++)
+				for (int i = 0; i < f1.length; i++)
+					if (f1[i] <= xs[a] && f2[i] <= ys[b])
+					{
+						area += (xs[a + 1] - xs[a]) * (ys[b + 1] - ys[b]);
+						break;
+					}
+		return area;
+	}
+
+	private static double[] coordinates(double[] values, double ref)
+	{
+		double[] c = new double[values.length + 1];
+		int n = 0;
+		for (double v : values)
+			if (v < ref)
+				c[n++] = v;
+		c[n++] = ref;
+		c = Arrays.copyOf(c, n);
+		Arrays.sort(c);
+		return c;
+	}
+}
@@ -0,0 +1,55 @@
+package regression;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import WindowShading.FacadeGeometry;
+
+/**
+ * Checks that a model with genomes longer than the fingerprint's 8 KiB buffer is saved, reloaded while its
+ * training data is unchanged, and retrained once the data changes.
+ */
+public class ModelFingerprintCheck
+{
+	public static void main(String[] args) throws IOException
+	{
+		// 2500 windows, a row of 2501 values is 20 KB
+		FacadeGeometry geometry = new FacadeGeometry(50, 50, false, false);
+		double[][] set = new double[5][geometry.getGenomeLength() + 1];
+		for (int i = 0; i < set.length; i++)
+		{
+			for (int b = 0; b < geometry.getGenomeLength(); b++)
+				set[i][b] = (i + b) % 3 == 0 ? 1 : 0;
+			set[i][geometry.getGenomeLength()] = 20000 + 100 * i;
+		}
+
+		File file = File.createTempFile("surrogate", ".model");
+		file.deleteOnExit();
+		if (!file.delete())
+			throw new IOException("could not delete " + file);
+
+		train(set, geometry, file);
+		byte[] saved = Files.readAllBytes(file.toPath());
+
+		train(set, geometry, file);
+		if (!Arrays.equals(saved, Files.readAllBytes(file.toPath())))
+			throw new AssertionError("unchanged training data was not reloaded");
+
+		set[2][1234] = 1 - set[2][1234];
+		train(set, geometry, file);
+		if (Arrays.equals(saved, Files.readAllBytes(file.toPath())))
+			throw new AssertionError("changed training data did not change the fingerprint");
+
+		System.out.println("Model fingerprint: ok");
+	}
+
+	private static void train(double[][] set, FacadeGeometry geometry, File file)
+	{
+		Model model = new Model(set, geometry);
+		model.setSettings(new NetworkSettings("1", 0.3, 0.2, 1));
+		model.setModelFile(file);
+		model.go();
+	}
+}